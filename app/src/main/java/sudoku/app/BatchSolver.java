@@ -0,0 +1,265 @@
+package sudoku.app;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import sudoku.BacktrackingSolver;
+import sudoku.Board;
+import sudoku.BoardState;
+import sudoku.CachingSolver;
+import sudoku.DancingLinksSolver;
+import sudoku.LatencyHistogram;
+import sudoku.PropagationSolver;
+import sudoku.PuzzleImporter;
+import sudoku.SolutionCache;
+import sudoku.Solver;
+import sudoku.StepSolver;
+
+/**
+ * Headless entry point that solves (or counts) every puzzle in a file without starting
+ * the UI. Puzzles are read as a stream and handed to a thread pool, but only a bounded
+ * window of them is in flight at once, so memory stays flat however big the file is.
+ * Results are written one per line in input order, and a summary goes to stderr.
+ * With --grade each result is the puzzle's difficulty (see StepSolver) instead.
+ * --cache N keeps the results of the last N distinct puzzles (see CachingSolver), so
+ * a puzzle that comes up again, even relabeled or reordered, isn't searched twice.
+ *
+ * Usage: BatchSolver [--count | --grade] [--limit N] [--threads N] [--solver propagation|dlx|backtracking] [--cache N] [--out FILE] FILE|-
+ */
+public class BatchSolver
+{
+    private boolean count = false;
+    private boolean grade = false;
+    private int limit = 2;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String solverName = "propagation";
+    private int cacheSize = 0;
+    private String outFile = null;
+    private String inFile = null;
+
+    private Solver solver;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong failures = new AtomicLong();
+
+    public static void main(String[] args) throws Exception
+    {
+        BatchSolver batch = new BatchSolver();
+        try
+        {
+            batch.parseArgs(args);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BatchSolver [--count | --grade] [--limit N] [--threads N] [--solver propagation|dlx|backtracking] [--cache N] [--out FILE] FILE|-");
+            System.exit(2);
+        }
+        batch.run();
+    }
+
+    private void parseArgs(String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--count":
+                    count = true;
+                    break;
+                case "--grade":
+                    grade = true;
+                    break;
+                case "--limit":
+                    limit = Integer.parseInt(argValue(args, ++i));
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(argValue(args, ++i));
+                    break;
+                case "--solver":
+                    solverName = argValue(args, ++i);
+                    break;
+                case "--cache":
+                    cacheSize = Integer.parseInt(argValue(args, ++i));
+                    break;
+                case "--out":
+                    outFile = argValue(args, ++i);
+                    break;
+                default:
+                    if (inFile != null)
+                    {
+                        throw new IllegalArgumentException("Only one input file is supported");
+                    }
+                    inFile = args[i];
+                    break;
+            }
+        }
+        if (inFile == null)
+        {
+            throw new IllegalArgumentException("No input file given");
+        }
+        if (count && grade)
+        {
+            throw new IllegalArgumentException("Use either --count or --grade");
+        }
+        solver = createSolver(solverName);
+        if (cacheSize > 0)
+        {
+            solver = new CachingSolver(solver, cacheSize);
+        }
+    }
+
+    private static String argValue(String[] args, int i)
+    {
+        if (i >= args.length)
+        {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    private static Solver createSolver(String name)
+    {
+        switch (name)
+        {
+            case "propagation":
+                return new PropagationSolver(null);
+            case "dlx":
+                return new DancingLinksSolver(null);
+            case "backtracking":
+                return new BacktrackingSolver();
+            default:
+                throw new IllegalArgumentException("Unknown solver: " + name);
+        }
+    }
+
+    private void run() throws IOException, InterruptedException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        // how many puzzles may be read ahead of the one being written
+        int window = threads * 64;
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        long puzzles = 0;
+        long start = System.nanoTime();
+
+        try (InputStream in = "-".equals(inFile) ? System.in : new FileInputStream(inFile);
+             OutputStream out = outFile == null ? System.out : new FileOutputStream(outFile);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16))
+        {
+            PuzzleImporter reader = new PuzzleImporter(in);
+            while (true)
+            {
+                Future<String> result;
+                try
+                {
+                    if (!reader.hasNext())
+                    {
+                        break;
+                    }
+                    // the worker makes the Board, so reading stays as fast as the file
+                    BoardState puzzle = reader.nextState();
+                    result = executor.submit(() -> process(puzzle.toBoard()));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    failures.incrementAndGet();
+                    result = CompletableFuture.completedFuture("error: " + e.getMessage());
+                }
+                pending.add(result);
+                puzzles++;
+                while (pending.size() >= window)
+                {
+                    writeResult(writer, pending.poll());
+                }
+            }
+            while (!pending.isEmpty())
+            {
+                writeResult(writer, pending.poll());
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        System.err.printf("%d puzzles in %.2fs (%.0f puzzles/s), %d failures%n",
+            puzzles, elapsed / 1e9, puzzles / (elapsed / 1e9), failures.get());
+        System.err.println("latency " + latencies.summary());
+        if (solver instanceof CachingSolver)
+        {
+            SolutionCache cache = ((CachingSolver) solver).getCache();
+            System.err.printf("cache %d hits, %d misses%n", cache.getHits(), cache.getMisses());
+        }
+    }
+
+    private String process(Board board)
+    {
+        long start = System.nanoTime();
+        String result;
+        try
+        {
+            if (grade)
+            {
+                result = StepSolver.rate(board).getName();
+            }
+            else if (count)
+            {
+                int numSolutions = solver.countSolutions(board, limit);
+                if (numSolutions == 0)
+                {
+                    failures.incrementAndGet();
+                }
+                result = Integer.toString(numSolutions);
+            }
+            else
+            {
+                Board solution = solver.solve(board);
+                if (solution == null)
+                {
+                    failures.incrementAndGet();
+                    result = "unsolvable";
+                }
+                else
+                {
+                    result = solution.toLine();
+                }
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            failures.incrementAndGet();
+            result = "error: " + e.getMessage();
+        }
+        latencies.record(System.nanoTime() - start);
+        return result;
+    }
+
+    private void writeResult(Writer writer, Future<String> result) throws IOException, InterruptedException
+    {
+        try
+        {
+            writer.write(result.get());
+        }
+        catch (ExecutionException e)
+        {
+            failures.incrementAndGet();
+            writer.write("error: " + e.getCause());
+        }
+        writer.write('\n');
+    }
+}
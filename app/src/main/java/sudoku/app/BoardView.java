@@ -0,0 +1,43 @@
+package sudoku.app;
+
+import sudoku.Board;
+
+import javafx.scene.Node;
+
+/**
+ * The part of the window that draws the board and takes the player's input. Sudoku
+ * keeps one and can swap it for the other from the View menu: CanvasBoardView draws
+ * everything on one Canvas, TextFieldBoardView is the original grid of TextFields.
+ * Either one follows the board through a BoardListener and enters values as moves.
+ */
+interface BoardView
+{
+    Node getNode();
+
+    // starts showing board (which may be a new size), replacing the board shown before
+    void show(Board board);
+
+    // stops following the board, before the view is thrown away
+    void detach();
+
+    boolean isFixed(int row, int col);
+
+    // fixed cells are the puzzle's givens, drawn in bold and not editable
+    void setFixed(int row, int col, boolean fixed);
+
+    boolean isHint(int row, int col);
+
+    void setHint(int row, int col, boolean hint);
+
+    void clearSelection();
+
+    boolean isPencilMarks();
+
+    // shows every empty cell's pencil marks (see Board.getPencilMarks()); the text fields have no room for them
+    void setPencilMarks(boolean shown);
+
+    boolean isPencilMode();
+
+    // while on, typing a value crosses it out of the selected cell's pencil marks (or puts it back) instead of entering it
+    void setPencilMode(boolean on);
+}
@@ -0,0 +1,516 @@
+package sudoku.app;
+
+import sudoku.Board;
+import sudoku.BoardListener;
+import sudoku.Candidates;
+
+import javafx.application.Platform;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Draws the whole board on one Canvas instead of a node per cell. Each cell's state
+ * (fixed, error, hint, selected) is a flag here rather than a CSS class, and a change
+ * only marks the cells it affects as dirty. Dirty cells are redrawn together once per
+ * pulse, so loading a puzzle or undoing a solve draws each cell once.
+ *
+ * Keys: the arrows move the selection (wrapping around like the text fields do), a
+ * digit or letter enters a value, and 0, backspace or delete clears the cell.
+ * Right-clicking a cell lists its possible values.
+ *
+ * With pencil marks on, empty cells show their candidates in a small grid. A move
+ * can only change the marks of the cell's peers, so only those are redrawn. In
+ * pencil mode (space toggles it) a typed value is crossed out of the selected cell's
+ * marks, or put back, instead of being entered.
+ */
+class CanvasBoardView implements BoardView, BoardListener
+{
+    // the colors and fonts of style.css, for the cells the text fields would draw
+    private static final Color BACKGROUND = Color.WHITE;
+    private static final Color SELECTED = Color.rgb(241, 242, 244);
+    private static final Color HINT = Color.rgb(255, 246, 235);
+    private static final Color HINT_SELECTED = Color.rgb(241, 235, 228);
+    private static final Color TEXT = Color.BLACK;
+    private static final Color ERROR = Color.rgb(255, 84, 75);
+    private static final Color LINE = Color.BLACK;
+    private static final Color PENCIL = Color.rgb(110, 110, 110);
+    private static final Color PENCIL_SELECTED = Color.rgb(226, 236, 250);
+    private static final String FONT_FAMILY = "Avenir";
+    // thick lines are drawn across the box borders and around the board
+    private static final double THIN_LINE = 1;
+    private static final double THICK_LINE = 2;
+
+    private final StackPane pane = new StackPane();
+    private final Canvas canvas = new Canvas();
+
+    private Board board;
+    private int boxSize;
+    private int size;
+    private double cellSize;
+    private Font font;
+    private Font fixedFont;
+    private Font pencilFont;
+    private boolean pencilMarks = false;
+    private boolean pencilMode = false;
+
+    private boolean[] fixed;
+    private boolean[] hints;
+    private boolean[] errors;
+    // the selected cell as row * size + col, or -1
+    private int selected = -1;
+
+    // cells waiting to be redrawn, and whether a redraw has been asked for yet
+    private boolean[] dirty;
+    private int[] dirtyCells;
+    private int dirtyCount;
+    private boolean redrawScheduled = false;
+
+    CanvasBoardView()
+    {
+        pane.getChildren().add(canvas);
+        pane.getStyleClass().add("board-canvas");
+        canvas.setFocusTraversable(true);
+        canvas.addEventHandler(MouseEvent.MOUSE_PRESSED, this::mousePressed);
+        canvas.addEventHandler(KeyEvent.KEY_PRESSED, this::keyPressed);
+        canvas.addEventHandler(KeyEvent.KEY_TYPED, this::keyTyped);
+    }
+
+    @Override
+    public Node getNode()
+    {
+        return pane;
+    }
+
+    @Override
+    public void show(Board board)
+    {
+        detach();
+        RefreshEvent refresh = new RefreshEvent();
+        refresh.begin();
+        this.board = board;
+        boxSize = board.getBoxSize();
+        size = board.getSize();
+        // the same cell and font sizes as the text fields get for each board size
+        cellSize = size <= 9 ? 60 : size <= 16 ? 40 : 26;
+        double fontSize = size <= 9 ? 40 : size <= 16 ? 24 : 16;
+        font = Font.font(FONT_FAMILY, FontWeight.NORMAL, fontSize);
+        fixedFont = Font.font(FONT_FAMILY, FontWeight.BOLD, fontSize);
+        // a pencil mark gets one cell of a boxSize x boxSize grid inside the cell
+        pencilFont = Font.font(FONT_FAMILY, FontWeight.NORMAL, cellSize / boxSize * 0.75);
+        double side = size * cellSize + THICK_LINE;
+        canvas.setWidth(side);
+        canvas.setHeight(side);
+        int cells = size * size;
+        fixed = new boolean[cells];
+        hints = new boolean[cells];
+        errors = new boolean[cells];
+        dirty = new boolean[cells];
+        dirtyCells = new int[cells];
+        dirtyCount = 0;
+        selected = -1;
+        for (int cell = 0; cell < cells; cell++)
+        {
+            errors[cell] = hasError(cell / size, cell % size);
+        }
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.setFill(BACKGROUND);
+        g.fillRect(0, 0, side, side);
+        for (int cell = 0; cell < cells; cell++)
+        {
+            drawCell(g, cell);
+        }
+        board.addListener(this);
+        refresh.kind = "grid";
+        refresh.cells = cells;
+        refresh.commit();
+    }
+
+    @Override
+    public void detach()
+    {
+        if (board != null)
+        {
+            board.removeListener(this);
+        }
+    }
+
+    @Override
+    public boolean isFixed(int row, int col)
+    {
+        return fixed[row * size + col];
+    }
+
+    @Override
+    public void setFixed(int row, int col, boolean value)
+    {
+        int cell = row * size + col;
+        if (fixed[cell] != value)
+        {
+            fixed[cell] = value;
+            markDirty(cell);
+        }
+    }
+
+    @Override
+    public boolean isHint(int row, int col)
+    {
+        return hints[row * size + col];
+    }
+
+    @Override
+    public void setHint(int row, int col, boolean value)
+    {
+        int cell = row * size + col;
+        if (hints[cell] != value)
+        {
+            hints[cell] = value;
+            markDirty(cell);
+        }
+    }
+
+    @Override
+    public void clearSelection()
+    {
+        select(-1);
+    }
+
+    @Override
+    public boolean isPencilMarks()
+    {
+        return pencilMarks;
+    }
+
+    @Override
+    public void setPencilMarks(boolean shown)
+    {
+        if (pencilMarks == shown)
+        {
+            return;
+        }
+        pencilMarks = shown;
+        for (int cell = 0; cell < size * size; cell++)
+        {
+            if (board.getCell(cell / size, cell % size) == 0)
+            {
+                markDirty(cell);
+            }
+        }
+    }
+
+    @Override
+    public boolean isPencilMode()
+    {
+        return pencilMode;
+    }
+
+    @Override
+    public void setPencilMode(boolean on)
+    {
+        pencilMode = on;
+        // crossing marks out without seeing them would be guesswork
+        if (on)
+        {
+            setPencilMarks(true);
+        }
+        if (selected >= 0)
+        {
+            markDirty(selected);
+        }
+    }
+
+    private void select(int cell)
+    {
+        if (selected >= 0)
+        {
+            markDirty(selected);
+        }
+        selected = cell;
+        if (cell >= 0)
+        {
+            markDirty(cell);
+        }
+    }
+
+    // the cell itself, and the peers whose error state or pencil marks it can change
+    @Override
+    public void cellChanged(int row, int col, int oldValue, int newValue)
+    {
+        markDirty(row * size + col);
+        for (int i = 0; i < size; i++)
+        {
+            updatePeer(row, i);
+            updatePeer(i, col);
+        }
+        int startRow = row / boxSize * boxSize;
+        int startCol = col / boxSize * boxSize;
+        for (int r = startRow; r < startRow + boxSize; r++)
+        {
+            for (int c = startCol; c < startCol + boxSize; c++)
+            {
+                updatePeer(r, c);
+            }
+        }
+    }
+
+    @Override
+    public void eliminationsChanged(int row, int col)
+    {
+        if (pencilMarks)
+        {
+            markDirty(row * size + col);
+        }
+    }
+
+    private void updatePeer(int row, int col)
+    {
+        int cell = row * size + col;
+        boolean error = hasError(row, col);
+        if (error != errors[cell])
+        {
+            errors[cell] = error;
+            markDirty(cell);
+        }
+        else if (pencilMarks && board.getCell(row, col) == 0)
+        {
+            markDirty(cell);
+        }
+    }
+
+    private boolean hasError(int row, int col)
+    {
+        int value = board.getCell(row, col);
+        return value != 0 && !Candidates.contains(board.getCandidateMask(row, col), value);
+    }
+
+    private void markDirty(int cell)
+    {
+        if (!dirty[cell])
+        {
+            dirty[cell] = true;
+            dirtyCells[dirtyCount++] = cell;
+        }
+        if (!redrawScheduled)
+        {
+            redrawScheduled = true;
+            Platform.runLater(this::redrawDirty);
+        }
+    }
+
+    private void redrawDirty()
+    {
+        redrawScheduled = false;
+        if (dirtyCount == 0)
+        {
+            return;
+        }
+        RefreshEvent refresh = new RefreshEvent();
+        refresh.begin();
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        for (int i = 0; i < dirtyCount; i++)
+        {
+            int cell = dirtyCells[i];
+            dirty[cell] = false;
+            drawCell(g, cell);
+        }
+        refresh.kind = "cells";
+        refresh.cells = dirtyCount;
+        refresh.commit();
+        dirtyCount = 0;
+    }
+
+    // fills the cell, writes its value, then draws its four edges over the top
+    private void drawCell(GraphicsContext g, int cell)
+    {
+        int row = cell / size;
+        int col = cell % size;
+        double x = THICK_LINE / 2 + col * cellSize;
+        double y = THICK_LINE / 2 + row * cellSize;
+
+        if (cell == selected && pencilMode)
+        {
+            g.setFill(PENCIL_SELECTED);
+        }
+        else if (hints[cell])
+        {
+            g.setFill(cell == selected ? HINT_SELECTED : HINT);
+        }
+        else
+        {
+            g.setFill(cell == selected ? SELECTED : BACKGROUND);
+        }
+        g.fillRect(x, y, cellSize, cellSize);
+
+        int value = board.getCell(row, col);
+        if (value == 0 && pencilMarks)
+        {
+            drawPencilMarks(g, board.getPencilMarks(row, col), x, y);
+        }
+        else if (value != 0)
+        {
+            g.setFont(fixed[cell] ? fixedFont : font);
+            g.setFill(errors[cell] ? ERROR : TEXT);
+            g.setTextAlign(TextAlignment.CENTER);
+            g.setTextBaseline(VPos.CENTER);
+            g.fillText(String.valueOf(Board.symbolOf(value)), x + cellSize / 2, y + cellSize / 2);
+        }
+
+        g.setStroke(LINE);
+        drawEdge(g, x, y, x + cellSize, y, row % boxSize == 0);
+        drawEdge(g, x, y + cellSize, x + cellSize, y + cellSize, row % boxSize == boxSize - 1);
+        drawEdge(g, x, y, x, y + cellSize, col % boxSize == 0);
+        drawEdge(g, x + cellSize, y, x + cellSize, y + cellSize, col % boxSize == boxSize - 1);
+    }
+
+    // value v goes in row (v - 1) / boxSize and column (v - 1) % boxSize of the little grid
+    private void drawPencilMarks(GraphicsContext g, int marks, double x, double y)
+    {
+        double step = cellSize / boxSize;
+        g.setFont(pencilFont);
+        g.setFill(PENCIL);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        for (; marks != 0; marks &= marks - 1)
+        {
+            int v = Candidates.first(marks);
+            double markX = x + ((v - 1) % boxSize + 0.5) * step;
+            double markY = y + ((v - 1) / boxSize + 0.5) * step;
+            g.fillText(String.valueOf(Board.symbolOf(v)), markX, markY);
+        }
+    }
+
+    private static void drawEdge(GraphicsContext g, double x1, double y1, double x2, double y2, boolean thick)
+    {
+        g.setLineWidth(thick ? THICK_LINE : THIN_LINE);
+        g.strokeLine(x1, y1, x2, y2);
+    }
+
+    // the cell under a point of the canvas, or -1 outside the grid
+    private int cellAt(double x, double y)
+    {
+        int col = (int) ((x - THICK_LINE / 2) / cellSize);
+        int row = (int) ((y - THICK_LINE / 2) / cellSize);
+        if (x < THICK_LINE / 2 || y < THICK_LINE / 2 || row >= size || col >= size)
+        {
+            return -1;
+        }
+        return row * size + col;
+    }
+
+    private void mousePressed(MouseEvent event)
+    {
+        canvas.requestFocus();
+        int cell = cellAt(event.getX(), event.getY());
+        if (cell < 0)
+        {
+            return;
+        }
+        select(cell);
+        if (event.getButton() == MouseButton.SECONDARY)
+        {
+            showPossibleValues(cell);
+        }
+    }
+
+    private void showPossibleValues(int cell)
+    {
+        boolean hint = hints[cell];
+        // highlighted the same way as a hint while the alert is open
+        setHint(cell / size, cell % size, true);
+        Alert alert = new Alert(AlertType.INFORMATION);
+        alert.setTitle("Possible values");
+        String t = board.getPossibleValues(cell / size, cell % size).toString();
+        t = t.substring(1, t.length() - 1);
+        alert.setContentText("Possible values for this square: " + t);
+        alert.showAndWait();
+        setHint(cell / size, cell % size, hint);
+    }
+
+    private void keyPressed(KeyEvent event)
+    {
+        if (event.getCode() == KeyCode.SPACE)
+        {
+            setPencilMode(!pencilMode);
+            event.consume();
+            return;
+        }
+        if (selected < 0)
+        {
+            return;
+        }
+        int row = selected / size;
+        int col = selected % size;
+        switch (event.getCode())
+        {
+            case LEFT:
+                select(row * size + (col - 1 + size) % size);
+                break;
+            case RIGHT:
+                select(row * size + (col + 1) % size);
+                break;
+            case UP:
+                select((row - 1 + size) % size * size + col);
+                break;
+            case DOWN:
+                select((row + 1) % size * size + col);
+                break;
+            case BACK_SPACE:
+            case DELETE:
+                enter(0);
+                break;
+            default:
+                return;
+        }
+        event.consume();
+    }
+
+    // values above 9 are typed as letters, A for 10 and so on
+    private void keyTyped(KeyEvent event)
+    {
+        String typed = event.getCharacter();
+        if (selected < 0 || typed.isEmpty())
+        {
+            return;
+        }
+        int value = Board.valueOf(typed.charAt(0));
+        if (value < 0 || value > size)
+        {
+            return;
+        }
+        enter(value);
+        event.consume();
+    }
+
+    private void enter(int value)
+    {
+        int row = selected / size;
+        int col = selected % size;
+        if (fixed[selected])
+        {
+            return;
+        }
+        if (pencilMode && value != 0)
+        {
+            if (board.getCell(row, col) == 0)
+            {
+                board.toggleElimination(row, col, value);
+            }
+        }
+        else if (board.getCell(row, col) != value)
+        {
+            board.makeMove(row, col, value);
+        }
+    }
+}
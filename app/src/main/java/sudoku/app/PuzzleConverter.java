@@ -0,0 +1,184 @@
+package sudoku.app;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import sudoku.Board;
+import sudoku.Difficulty;
+import sudoku.PackedPuzzleReader;
+import sudoku.PackedPuzzleWriter;
+import sudoku.PropagationSolver;
+import sudoku.PuzzleImporter;
+import sudoku.PuzzleLibrary;
+import sudoku.Solver;
+import sudoku.StepSolver;
+
+/**
+ * Converts between text puzzle files (anything PuzzleImporter accepts) and the packed
+ * binary format, or adds the puzzles of a text file to a PuzzleLibrary.
+ *
+ * Usage: PuzzleConverter to-packed [--solutions] [--metadata] IN OUT
+ *        PuzzleConverter to-text IN OUT
+ *        PuzzleConverter to-library IN DIR
+ */
+public class PuzzleConverter
+{
+    // puzzles read ahead and rated in parallel on their way into a library
+    private static final int LIBRARY_BATCH = 4096;
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length >= 3 && args[0].equals("to-packed"))
+        {
+            boolean withSolutions = false;
+            boolean withMetadata = false;
+            for (int i = 1; i < args.length - 2; i++)
+            {
+                if (args[i].equals("--solutions"))
+                {
+                    withSolutions = true;
+                }
+                else if (args[i].equals("--metadata"))
+                {
+                    withMetadata = true;
+                }
+            }
+            long count = textToPacked(Paths.get(args[args.length - 2]), Paths.get(args[args.length - 1]), withSolutions, withMetadata);
+            System.err.println("Wrote " + count + " puzzles");
+        }
+        else if (args.length == 3 && args[0].equals("to-text"))
+        {
+            long count = packedToText(Paths.get(args[1]), Paths.get(args[2]));
+            System.err.println("Wrote " + count + " puzzles");
+        }
+        else if (args.length == 3 && args[0].equals("to-library"))
+        {
+            long count = textToLibrary(Paths.get(args[1]), Paths.get(args[2]));
+            System.err.println("Added " + count + " puzzles");
+        }
+        else
+        {
+            System.err.println("Usage: PuzzleConverter to-packed [--solutions] [--metadata] IN OUT");
+            System.err.println("       PuzzleConverter to-text IN OUT");
+            System.err.println("       PuzzleConverter to-library IN DIR");
+            System.exit(2);
+        }
+    }
+
+    // returns the number of puzzles written
+    public static long textToPacked(Path in, Path out, boolean withSolutions, boolean withMetadata) throws IOException
+    {
+        Solver solver = new PropagationSolver(null);
+        try (PuzzleImporter puzzles = PuzzleImporter.open(in);
+             PackedPuzzleWriter writer = new PackedPuzzleWriter(out, withSolutions, withMetadata))
+        {
+            while (puzzles.hasNext())
+            {
+                Board puzzle = puzzles.next();
+                Board solution = null;
+                if (withSolutions)
+                {
+                    solution = solver.solve(puzzle);
+                    if (solution == null)
+                    {
+                        throw new IllegalArgumentException("Line " + puzzles.getLineNumber() + ": puzzle has no solution");
+                    }
+                }
+                // difficulty 0 means unknown, so the grades are stored from 1
+                int difficulty = withMetadata ? StepSolver.rate(puzzle).ordinal() + 1 : 0;
+                writer.write(puzzle, solution, difficulty);
+            }
+            return writer.getCount();
+        }
+    }
+
+    // writes one 81-character line per puzzle, returns the number of puzzles written
+    public static long packedToText(Path in, Path out) throws IOException
+    {
+        try (PackedPuzzleReader reader = new PackedPuzzleReader(in);
+             Writer writer = new BufferedWriter(Files.newBufferedWriter(out, StandardCharsets.US_ASCII), 1 << 16))
+        {
+            for (Board puzzle : reader)
+            {
+                writer.write(puzzle.toLine());
+                writer.write('\n');
+            }
+            return reader.size();
+        }
+    }
+
+    /**
+     * Rates the 9x9 puzzles of in and adds them to the library in dir, returns the number
+     * added. A puzzle that can't be read is reported and skipped rather than stopping the
+     * import, since whatever was added before it stays in the library anyway.
+     */
+    public static long textToLibrary(Path in, Path dir) throws IOException
+    {
+        try (PuzzleLibrary library = PuzzleLibrary.open(dir))
+        {
+            return addToLibrary(in, library);
+        }
+    }
+
+    // the same, into a library that is already open; stops between batches if the thread is interrupted
+    public static long addToLibrary(Path in, PuzzleLibrary library) throws IOException
+    {
+        try (PuzzleImporter puzzles = PuzzleImporter.open(in))
+        {
+            List<Board> batch = new ArrayList<>(LIBRARY_BATCH);
+            long count = 0;
+            while (true)
+            {
+                Board puzzle = null;
+                try
+                {
+                    if (puzzles.hasNext())
+                    {
+                        puzzle = puzzles.next();
+                    }
+                }
+                catch (IllegalArgumentException e)
+                {
+                    System.err.println(e.getMessage());
+                    continue;
+                }
+                if (puzzle != null && puzzle.getSize() == 9)
+                {
+                    batch.add(puzzle);
+                }
+                if (batch.size() == LIBRARY_BATCH || puzzle == null)
+                {
+                    count += addAll(library, batch);
+                    batch.clear();
+                    if (Thread.currentThread().isInterrupted())
+                    {
+                        throw new CancellationException("Import cancelled after " + count + " puzzles");
+                    }
+                }
+                if (puzzle == null)
+                {
+                    return count;
+                }
+            }
+        }
+    }
+
+    // rates the batch in parallel, that's the slow part, then adds it in input order so ids don't depend on timing
+    private static long addAll(PuzzleLibrary library, List<Board> batch) throws IOException
+    {
+        Difficulty[] difficulties = batch.parallelStream().map(StepSolver::rate).toArray(Difficulty[]::new);
+        for (int i = 0; i < difficulties.length; i++)
+        {
+            library.add(batch.get(i), difficulties[i]);
+        }
+        return difficulties.length;
+    }
+}
@@ -0,0 +1,25 @@
+package sudoku.app;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event for each time the window catches up with the board: one
+ * per changed cell, or one for building the whole grid. Shows up next to the
+ * sudoku.Solve events from the core, so slow redraws can be told from slow searches.
+ */
+@Name("sudoku.Refresh")
+@Label("Sudoku UI Refresh")
+@Category("Sudoku")
+@Description("The board view updating after a change")
+final class RefreshEvent extends Event
+{
+    @Label("Kind")
+    String kind;
+
+    @Label("Cells")
+    int cells;
+}
@@ -0,0 +1,490 @@
+package sudoku.app;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import sudoku.Board;
+import sudoku.LatencyHistogram;
+import sudoku.PuzzleImporter;
+import sudoku.SolutionCount;
+import sudoku.SolverService;
+
+/**
+ * Headless entry point that answers solver requests over HTTP on localhost, so other
+ * processes on the machine can use the engine without embedding it. Puzzles go in the
+ * request body (or a puzzle= query parameter) in any format PuzzleImporter accepts,
+ * and answers come back as one line of plain text:
+ *
+ * - POST /solve              the solution as a line (see Board.toLine()), or "unsolvable"
+ * - POST /count?limit=N      the number of solutions, counting at most N (default 2)
+ * - POST /validate           "unique", "multiple" or "none", or 400 if the givens clash
+ * - GET  /generate?size=N    a new puzzle with a unique solution, N is 4, 9 (default) or 16
+ * - GET  /stats              latency per endpoint, queue length and rejected requests
+ *
+ * Requests are parsed by a few handler threads and put on a bounded admission queue;
+ * when it is full the server answers 503 with Retry-After rather than queueing without
+ * limit. A dispatcher thread takes everything that is queued whenever workers are idle
+ * and hands it out across them in one pass, one request per worker, so a burst of
+ * small requests is coalesced without a slow search holding up the ones behind it.
+ * Each request runs as a SolverService job and is cancelled once it has run for
+ * --timeout seconds, answered with 504. Latencies are measured from admission to
+ * answer, so they include the time spent queued.
+ *
+ * Usage: SolverServer [--port N] [--threads N] [--queue N] [--timeout SECONDS]
+ */
+public class SolverServer
+{
+    private static final String USAGE = "Usage: SolverServer [--port N] [--threads N] [--queue N] [--timeout SECONDS]";
+    // puzzles are at most a few KB, anything much bigger is a mistake
+    private static final int MAX_BODY = 1 << 16;
+    private static final int MAX_LIMIT = 100_000;
+    private static final int MAX_GENERATED_BOX_SIZE = 4;
+    private static final String[] ENDPOINTS = {"solve", "count", "validate", "generate"};
+
+    private int port = 8220;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 256;
+    private Duration timeout = Duration.ofSeconds(10);
+
+    private HttpServer server;
+    private ExecutorService handlers;
+    private BlockingQueue<Job> queue;
+    private Thread dispatcher;
+    private SolverService workers;
+    // one permit per worker that isn't answering a request
+    private Semaphore idle;
+    private final Set<SolverService.Job<String>> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopping = false;
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public SolverServer()
+    {
+        for (String endpoint : ENDPOINTS)
+        {
+            latencies.put(endpoint, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        SolverServer solverServer = new SolverServer();
+        try
+        {
+            solverServer.parseArgs(args);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        solverServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(solverServer::stop));
+        System.err.println("Listening on http://localhost:" + solverServer.getPort() + "/");
+    }
+
+    private void parseArgs(String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--port":
+                    port = Integer.parseInt(argValue(args, ++i));
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(argValue(args, ++i));
+                    break;
+                case "--queue":
+                    queueCapacity = Integer.parseInt(argValue(args, ++i));
+                    break;
+                case "--timeout":
+                    timeout = Duration.ofSeconds(Integer.parseInt(argValue(args, ++i)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (threads < 1 || queueCapacity < 1 || timeout.isNegative() || timeout.isZero())
+        {
+            throw new IllegalArgumentException("--threads, --queue and --timeout must be at least 1");
+        }
+    }
+
+    private static String argValue(String[] args, int i)
+    {
+        if (i >= args.length)
+        {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    // binds to the loopback address only; port 0 picks a free port (see getPort())
+    public void start() throws IOException
+    {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/solve", exchange -> admit(exchange, "solve", true, this::solve));
+        server.createContext("/count", exchange -> admit(exchange, "count", true, this::count));
+        server.createContext("/validate", exchange -> admit(exchange, "validate", true, this::validate));
+        server.createContext("/generate", exchange -> admit(exchange, "generate", false, this::generate));
+        server.createContext("/stats", this::stats);
+        // handlers only parse and enqueue, the workers do the solving
+        handlers = Executors.newFixedThreadPool(2);
+        server.setExecutor(handlers);
+        // answers are sent from whichever thread finishes the job, a worker or the timeout timer
+        workers = new SolverService(Runnable::run, threads);
+        idle = new Semaphore(threads);
+        dispatcher = new Thread(this::dispatch, "solver-server-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        server.start();
+    }
+
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+
+    // stops taking requests, cancels the searches in progress and turns away whatever is still queued
+    public void stop()
+    {
+        stopping = true;
+        dispatcher.interrupt();
+        try
+        {
+            dispatcher.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        List<Job> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Job job : left)
+        {
+            send(job.exchange, 503, "server is shutting down");
+        }
+        for (SolverService.Job<String> job : running)
+        {
+            job.cancel();
+        }
+        workers.shutdown();
+        // a second for the answers above and the ones the workers are sending to go out
+        server.stop(1);
+        handlers.shutdown();
+    }
+
+    public LatencyHistogram getLatencies(String endpoint)
+    {
+        return latencies.get(endpoint);
+    }
+
+    public long getRejected()
+    {
+        return rejected.get();
+    }
+
+    public long getTimedOut()
+    {
+        return timedOut.get();
+    }
+
+    private void admit(HttpExchange exchange, String endpoint, boolean needsPuzzle, Work work)
+    {
+        long admitted = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        if (!method.equals("GET") && !method.equals("POST"))
+        {
+            send(exchange, 405, "use GET or POST");
+            return;
+        }
+        Job job;
+        try
+        {
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            Board puzzle = needsPuzzle ? readPuzzle(exchange, params) : null;
+            job = new Job(exchange, endpoint, params, puzzle, work, admitted);
+        }
+        catch (IllegalArgumentException e)
+        {
+            send(exchange, 400, e.getMessage());
+            return;
+        }
+        catch (IOException e)
+        {
+            exchange.close();
+            return;
+        }
+        if (stopping)
+        {
+            send(exchange, 503, "server is shutting down");
+            return;
+        }
+        if (!queue.offer(job))
+        {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, 503, "too many requests waiting, try again later");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query)
+    {
+        Map<String, String> params = new HashMap<>();
+        if (query == null)
+        {
+            return params;
+        }
+        for (String pair : query.split("&"))
+        {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static Board readPuzzle(HttpExchange exchange, Map<String, String> params) throws IOException
+    {
+        byte[] body;
+        if (params.containsKey("puzzle"))
+        {
+            body = params.get("puzzle").getBytes(StandardCharsets.US_ASCII);
+        }
+        else
+        {
+            try (InputStream in = exchange.getRequestBody())
+            {
+                body = in.readNBytes(MAX_BODY + 1);
+            }
+            if (body.length > MAX_BODY)
+            {
+                throw new IllegalArgumentException("request body is bigger than " + MAX_BODY + " bytes");
+            }
+        }
+        PuzzleImporter importer = new PuzzleImporter(new ByteArrayInputStream(body));
+        if (!importer.hasNext())
+        {
+            throw new IllegalArgumentException("no puzzle in the request");
+        }
+        return importer.next();
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue, int min, int max)
+    {
+        String value = params.get(name);
+        if (value == null)
+        {
+            return defaultValue;
+        }
+        try
+        {
+            int n = Integer.parseInt(value);
+            if (n >= min && n <= max)
+            {
+                return n;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // reported below
+        }
+        throw new IllegalArgumentException(name + " must be a number from " + min + " to " + max);
+    }
+
+    // waits for an idle worker, then hands out every queued job there is a worker for
+    private void dispatch()
+    {
+        List<Job> batch = new ArrayList<>();
+        try
+        {
+            while (true)
+            {
+                idle.acquire();
+                batch.add(queue.take());
+                int free = idle.drainPermits();
+                queue.drainTo(batch, free);
+                idle.release(free - (batch.size() - 1));
+                for (Job job : batch)
+                {
+                    run(job);
+                }
+                batch.clear();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // stop() was called
+            for (Job job : batch)
+            {
+                send(job.exchange, 503, "server is shutting down");
+            }
+        }
+    }
+
+    private void run(Job job)
+    {
+        SolverService.Job<String> task = workers.submit(() -> job.work.run(job), timeout);
+        running.add(task);
+        task.result().whenComplete((body, failure) -> {
+            running.remove(task);
+            idle.release();
+            answer(job, body, failure);
+        });
+    }
+
+    private void answer(Job job, String body, Throwable failure)
+    {
+        int status = 200;
+        if (failure instanceof IllegalArgumentException)
+        {
+            status = 400;
+            body = failure.getMessage();
+        }
+        else if (failure instanceof TimeoutException)
+        {
+            timedOut.incrementAndGet();
+            status = 504;
+            body = "gave up after " + timeout.toSeconds() + "s";
+        }
+        else if (failure instanceof CancellationException)
+        {
+            // only stop() cancels jobs
+            send(job.exchange, 503, "server is shutting down");
+            return;
+        }
+        else if (failure != null)
+        {
+            failure.printStackTrace();
+            status = 500;
+            body = "internal error: " + failure;
+        }
+        send(job.exchange, status, body);
+        latencies.get(job.endpoint).record(System.nanoTime() - job.admitted);
+    }
+
+    private String solve(Job job)
+    {
+        Board solution = job.puzzle.findSolution();
+        return solution == null ? "unsolvable" : solution.toLine();
+    }
+
+    private String count(Job job)
+    {
+        int limit = intParam(job.params, "limit", 2, 1, MAX_LIMIT);
+        return Integer.toString(job.puzzle.numSolutions(limit));
+    }
+
+    private String validate(Job job)
+    {
+        // clashing givens were already turned away by PuzzleImporter
+        SolutionCount count = job.puzzle.getSolutionCount();
+        return count.name().toLowerCase(Locale.ROOT);
+    }
+
+    private String generate(Job job)
+    {
+        int size = intParam(job.params, "size", 9, 4, MAX_GENERATED_BOX_SIZE * MAX_GENERATED_BOX_SIZE);
+        int boxSize = (int) Math.sqrt(size);
+        if (boxSize * boxSize != size)
+        {
+            throw new IllegalArgumentException("size must be 4, 9 or 16");
+        }
+        Board board = new Board(boxSize);
+        board.generateMinimumSolvable();
+        return board.toLine();
+    }
+
+    // answered by the handler itself, so it still works while the workers are swamped
+    private void stats(HttpExchange exchange)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet())
+        {
+            sb.append(entry.getKey()).append(' ').append(entry.getValue().summary()).append('\n');
+        }
+        sb.append("queue ").append(queue.size()).append('/').append(queueCapacity)
+            .append(", rejected ").append(rejected.get())
+            .append(", timed out ").append(timedOut.get());
+        send(exchange, 200, sb.toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String body)
+    {
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        try
+        {
+            exchange.sendResponseHeaders(status, bytes.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(bytes);
+            out.close();
+        }
+        catch (IOException e)
+        {
+            // the client hung up, there is no one left to tell
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    private interface Work
+    {
+        String run(Job job);
+    }
+
+    // one admitted request, answered by whichever worker the dispatcher hands it to
+    private static class Job
+    {
+        private final HttpExchange exchange;
+        private final String endpoint;
+        private final Map<String, String> params;
+        private final Board puzzle;
+        private final Work work;
+        private final long admitted;
+
+        Job(HttpExchange exchange, String endpoint, Map<String, String> params, Board puzzle, Work work, long admitted)
+        {
+            this.exchange = exchange;
+            this.endpoint = endpoint;
+            this.params = Collections.unmodifiableMap(params);
+            this.puzzle = puzzle;
+            this.work = work;
+            this.admitted = admitted;
+        }
+    }
+}
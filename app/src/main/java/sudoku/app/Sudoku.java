@@ -0,0 +1,889 @@
+package sudoku.app;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import sudoku.BacktrackingSolver;
+import sudoku.Board;
+import sudoku.BoardListener;
+import sudoku.DancingLinksSolver;
+import sudoku.Difficulty;
+import sudoku.ParallelSolver;
+import sudoku.PropagationSolver;
+import sudoku.PuzzleLibrary;
+import sudoku.PuzzlePool;
+import sudoku.SessionLog;
+import sudoku.SolverService;
+import sudoku.SolverStats;
+import sudoku.Step;
+import sudoku.StepSolver;
+import sudoku.Trace;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceDialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.Menu;
+import javafx.scene.control.MenuBar;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+public class Sudoku extends Application
+{
+    private Board board = new Board();
+    // the board is made of boxSize x boxSize boxes, so size is 9 for the usual board
+    private int boxSize = 3;
+    private int size = 9;
+    // "Print number of solutions" stops counting here, nearly empty boards have billions
+    private static final int MAX_COUNTED_SOLUTIONS = 100000;
+    private VBox root;
+    private VBox boardVBox;
+    // draws the board and takes input; the canvas unless started with -Dsudoku.view=textfields
+    private BoardView view;
+    private int width = 800;
+    private int height = 800;
+    // generated puzzles are kept here between runs so the first one after launch is instant too
+    private static final Path POOL_FILE = Paths.get(System.getProperty("user.home"), ".sudoku-pool.bin");
+    private PuzzlePool puzzlePool = new PuzzlePool(20, 5, 2);
+    // the game in progress, replayed on the next launch
+    private static final Path SESSION_FILE = Paths.get(System.getProperty("user.home"), ".sudoku-session.bin");
+    private SessionLog sessionLog;
+    // every 9x9 puzzle generated is filed here, to be drawn again by difficulty; -Dsudoku.library points elsewhere
+    private static final Path LIBRARY_DIR = Paths.get(System.getProperty("sudoku.library",
+        Paths.get(System.getProperty("user.home"), ".sudoku-library").toString()));
+    private PuzzleLibrary library;
+    // the puzzle last put on the board, and its id in the library (-1 if it isn't there, or not yet)
+    private Board shownPuzzle;
+    private long libraryId = -1;
+    private final Random random = new Random();
+    // marks the puzzle solved in the library once the player fills in the last cell
+    private final BoardListener solvedWatcher = (row, col, oldValue, newValue) -> {
+        if (libraryId >= 0 && newValue != 0 && board.isSolved()) {
+            try {
+                library.setSolved(libraryId, true);
+            } catch (IOException e) {
+                System.out.println("Unable to mark the puzzle solved: " + e.getMessage());
+            }
+        }
+    };
+    // searches run here so a hard board doesn't freeze the window
+    private static final Duration SOLVER_TIMEOUT = Duration.ofSeconds(30);
+    // importing a big collection into the library rates every puzzle in it
+    private static final Duration IMPORT_TIMEOUT = Duration.ofHours(1);
+    private SolverService solverService = new SolverService(Platform::runLater);
+    private SolverService.Job<?> currentJob;
+    private HBox progressBox;
+    private Label progressLabel;
+
+    @Override
+    public void start(Stage primaryStage) throws Exception
+    {
+        root = new VBox();
+
+        try {
+            puzzlePool.load(POOL_FILE);
+        } catch (IOException e) {
+            System.out.println("Unable to load saved puzzles: " + e.getMessage());
+        }
+        puzzlePool.start();
+
+        try {
+            library = PuzzleLibrary.open(LIBRARY_DIR);
+        } catch (IOException e) {
+            System.out.println("Unable to open the puzzle library: " + e.getMessage());
+        }
+
+        //System.out.println(new File(".").getAbsolutePath());
+
+        root.getChildren().add(createMenuBar(primaryStage));
+
+        // shown while a solver job is running
+        progressBox = new HBox();
+        progressBox.getStyleClass().add("progress-box");
+        progressLabel = new Label();
+        ProgressIndicator progressIndicator = new ProgressIndicator();
+        progressIndicator.setPrefSize(24, 24);
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(event -> cancelCurrentJob());
+        progressBox.getChildren().addAll(progressIndicator, progressLabel, cancelButton);
+        showProgress(null);
+        root.getChildren().add(progressBox);
+
+        boardVBox = new VBox();
+        root.getChildren().add(boardVBox);
+        boardVBox.getStyleClass().add("board-vbox");
+        boardVBox.setAlignment(Pos.CENTER);
+        showView("textfields".equals(System.getProperty("sudoku.view")) ? new TextFieldBoardView() : new CanvasBoardView());
+        board.addListener(solvedWatcher);
+        restoreSession();
+
+        // add key listener to the root node to grab ESC keys
+        root.setOnKeyPressed(event -> {
+            if (Trace.ENABLED) {
+                Trace.log("Key pressed: " + event.getCode());
+            }
+            switch (event.getCode())
+            {
+                // check for the ESC key
+                case ESCAPE:
+                    // clear the selected cell
+                    view.clearSelection();
+                    break;
+                default:
+                    if (Trace.ENABLED) {
+                        Trace.log("you typed key: " + event.getCode());
+                    }
+                    break;
+                
+            }
+        });
+
+        Scene scene = new Scene(root, width, height);
+
+        URL styleURL = getClass().getResource("/style.css");
+		String stylesheet = styleURL.toExternalForm();
+		scene.getStylesheets().add(stylesheet);
+        primaryStage.setTitle("Sudoku");
+        primaryStage.setScene(scene);
+        primaryStage.show();
+
+        primaryStage.setOnCloseRequest(event -> {
+        	System.out.println("oncloserequest");
+        });
+    }
+
+    @Override
+    public void stop()
+    {
+        if (sessionLog != null) {
+            try {
+                sessionLog.close();
+            } catch (IOException e) {
+                System.out.println("Unable to save the session: " + e.getMessage());
+            }
+        }
+        solverService.shutdown();
+        puzzlePool.stop();
+        try {
+            puzzlePool.save(POOL_FILE);
+        } catch (IOException e) {
+            System.out.println("Unable to save puzzles: " + e.getMessage());
+        }
+        if (library != null) {
+            try {
+                library.close();
+            } catch (IOException e) {
+                System.out.println("Unable to save the puzzle library: " + e.getMessage());
+            }
+        }
+    }
+
+    // swaps in another board view, keeping which cells are fixed and hinted
+    private void showView(BoardView newView)
+    {
+        newView.show(board);
+        if (view != null) {
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    newView.setFixed(row, col, view.isFixed(row, col));
+                    newView.setHint(row, col, view.isHint(row, col));
+                }
+            }
+            newView.setPencilMarks(view.isPencilMarks());
+            newView.setPencilMode(view.isPencilMode());
+            view.detach();
+        }
+        view = newView;
+        boardVBox.getChildren().setAll(view.getNode());
+    }
+
+    /**
+     * Switches to an empty board of another box size, keeping the chosen solver. The
+     * caller starts a new session once the board holds its puzzle.
+     */
+    private void resizeBoard(int newBoxSize)
+    {
+        cancelCurrentJob();
+        Board resized = new Board(newBoxSize);
+        resized.setSolver(board.getSolver());
+        board = resized;
+        boxSize = newBoxSize;
+        size = board.getSize();
+        view.show(board);
+        boardVBox.getChildren().setAll(view.getNode());
+        board.addListener(solvedWatcher);
+        if (sessionLog != null) {
+            board.addMoveListener(sessionLog);
+        }
+    }
+
+    // picks up the game from the last run, or starts logging the empty board
+    private void restoreSession() {
+        try {
+            SessionLog log = new SessionLog(SESSION_FILE);
+            int savedBoxSize = log.getSavedBoxSize();
+            if (savedBoxSize != 0 && savedBoxSize != boxSize) {
+                resizeBoard(savedBoxSize);
+            }
+            Board givens = log.restore(board);
+            if (givens != null) {
+                fixBoard(givens);
+            } else {
+                log.start(board);
+            }
+            sessionLog = log;
+            board.addMoveListener(sessionLog);
+        } catch (IOException e) {
+            System.out.println("Unable to restore the session: " + e.getMessage());
+            sessionLog = null;
+        }
+    }
+
+    // puts a generated or loaded puzzle on the board, switching size if it needs to
+    private void showPuzzle(Board puzzle) {
+        // whatever it was working out was about the puzzle being replaced
+        cancelCurrentJob();
+        if (puzzle.getBoxSize() != boxSize) {
+            resizeBoard(puzzle.getBoxSize());
+        }
+        hideAllHints();
+        unfixBoard();
+        shownPuzzle = puzzle;
+        libraryId = -1;
+        board.copy(puzzle);
+        board.clearMoves();
+        board.clearEliminations();
+        fixBoard();
+        startSession();
+    }
+
+    // puts a library puzzle on the board, remembering its id so solving it is recorded
+    private void showLibraryPuzzle(long id) throws IOException {
+        showPuzzle(library.get(id));
+        libraryId = id;
+    }
+
+    // files a puzzle in the library in the background, since it is rated first
+    private void addToLibrary(Board puzzle) {
+        if (library == null) {
+            return;
+        }
+        Board copy = new Board(puzzle);
+        solverService.submit(() -> library.add(copy), SOLVER_TIMEOUT).result().whenComplete((id, error) -> {
+            if (error != null) {
+                System.out.println("Unable to add the puzzle to the library: " + error.getMessage());
+            } else if (shownPuzzle == puzzle) {
+                libraryId = id;
+            }
+        });
+    }
+
+    // called once a new puzzle is on the board and fixed
+    private void startSession() {
+        if (sessionLog == null) {
+            return;
+        }
+        try {
+            sessionLog.start(board);
+        } catch (IOException e) {
+            System.out.println("Unable to start a new session: " + e.getMessage());
+        }
+    }
+
+    private MenuBar createMenuBar(Stage primaryStage)
+    {
+        MenuBar menuBar = new MenuBar();
+    	menuBar.getStyleClass().add("menubar");
+
+        //
+        // File Menu
+        //
+    	Menu fileMenu = new Menu("File");
+
+        // add a menu item which allows the user to generate a random board
+        addMenuItem(fileMenu, "Generate random board", () -> {
+            System.out.println("Generate random board");
+            if (size == 9) {
+                try {
+                    // rather than waiting for one to be generated when the pool has run dry
+                    long id = puzzlePool.size() == 0 && library != null ? library.query().solved(false).pick(random) : -1;
+                    if (id >= 0) {
+                        showLibraryPuzzle(id);
+                        return;
+                    }
+                } catch (IOException e) {
+                    System.out.println("Unable to read the puzzle library: " + e.getMessage());
+                }
+                Board pooled = puzzlePool.poll();
+                if (pooled != null) {
+                    showPuzzle(pooled);
+                    addToLibrary(pooled);
+                    return;
+                }
+            }
+            // the pool only keeps 9x9 puzzles, bigger ones (and 9x9 ones once it has run dry) are made off the FX thread
+            int generatedBoxSize = boxSize;
+            SolverService.Job<Board> job = solverService.submit(() -> {
+                Board generated = new Board(generatedBoxSize);
+                generated.setSolver(board.getSolver());
+                generated.generateMinimumSolvable();
+                return generated;
+            }, SOLVER_TIMEOUT);
+            runSolverJob("Generating", job, generated -> {
+                if (generated.getBoxSize() == boxSize) {
+                    showPuzzle(generated);
+                    if (generated.getSize() == 9) {
+                        addToLibrary(generated);
+                    }
+                }
+            });
+        });
+
+        addMenuItem(fileMenu, "Load from file", () -> {
+            System.out.println("Load from file");
+            FileChooser fileChooser = new FileChooser();
+            // XXX: this is a hack to get the file chooser to open in the right directory
+            // we should probably have a better way to find this folder than a hard coded path
+			fileChooser.setInitialDirectory(new File("../puzzles"));
+			File sudokuFile = fileChooser.showOpenDialog(primaryStage);
+            if (sudokuFile != null)
+            {
+                System.out.println("Selected file: " + sudokuFile.getName());
+                
+                try {
+                    Board loaded = Board.loadBoard(new FileInputStream(sudokuFile));
+                    showPuzzle(loaded);
+                } catch (Exception e) {
+                    // pop up and error window
+                    Alert alert = new Alert(AlertType.ERROR);
+    	            alert.setTitle("Unable to load sudoku board from file "+ sudokuFile.getName());
+    	            alert.setHeaderText(e.getMessage());
+                    alert.setContentText(e.getMessage());
+                    e.printStackTrace();
+                    if (e.getCause() != null) e.getCause().printStackTrace();
+                    
+                    alert.showAndWait();
+                }
+            }
+        });
+
+        // an unsolved puzzle of the chosen difficulty, picked at random from the library
+        addMenuItem(fileMenu, "Load from library", () -> {
+            System.out.println("Load from library");
+            if (library == null) {
+                showLibraryError("The puzzle library couldn't be opened", null);
+                return;
+            }
+            List<String> choices = new ArrayList<>();
+            choices.add("any");
+            for (Difficulty difficulty : Difficulty.values()) {
+                choices.add(difficulty.getName());
+            }
+            ChoiceDialog<String> dialog = new ChoiceDialog<>("any", choices);
+            dialog.setTitle("Load from library");
+            dialog.setHeaderText(library.size() + " puzzles in the library");
+            dialog.setContentText("Difficulty:");
+            dialog.showAndWait().ifPresent(choice -> {
+                PuzzleLibrary.Query query = library.query().solved(false);
+                for (Difficulty difficulty : Difficulty.values()) {
+                    if (difficulty.getName().equals(choice)) {
+                        query.difficulty(difficulty);
+                    }
+                }
+                try {
+                    long id = query.pick(random);
+                    if (id < 0) {
+                        Alert alert = new Alert(AlertType.INFORMATION);
+                        alert.setTitle("Load from library");
+                        alert.setHeaderText("There are no unsolved " + (choice.equals("any") ? "" : choice + " ") + "puzzles in the library");
+                        alert.showAndWait();
+                    } else {
+                        showLibraryPuzzle(id);
+                    }
+                } catch (IOException e) {
+                    showLibraryError("Unable to read the puzzle library", e);
+                }
+            });
+        });
+
+        // adds every 9x9 puzzle in a file to the library, for "Load from library" to pick from
+        addMenuItem(fileMenu, "Import file into library", () -> {
+            System.out.println("Import file into library");
+            if (library == null) {
+                showLibraryError("The puzzle library couldn't be opened", null);
+                return;
+            }
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setInitialDirectory(new File("../puzzles"));
+            File puzzleFile = fileChooser.showOpenDialog(primaryStage);
+            if (puzzleFile != null) {
+                SolverService.Job<Long> job = solverService.submit(() -> PuzzleConverter.addToLibrary(puzzleFile.toPath(), library), IMPORT_TIMEOUT);
+                runSolverJob("Importing", job, count -> {
+                    Alert alert = new Alert(AlertType.INFORMATION);
+                    alert.setTitle("Import file into library");
+                    alert.setHeaderText("Added " + count + " puzzles, the library has " + library.size());
+                    alert.showAndWait();
+                });
+            }
+        });
+
+        // save to text
+        addMenuItem(fileMenu, "Save to text", () -> {
+            System.out.println("Save puzzle to text");
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setInitialDirectory(new File("../puzzles"));
+            File file = fileChooser.showSaveDialog(primaryStage);
+            if (file != null)
+            {
+                System.out.println("Selected file: " + file.getName());
+                try {
+                    //TODO: check if the file already exists, and ask the user if they want to overwrite
+                    writeToFile(file, board.toString());
+                } catch (Exception e) {
+                    Alert alert = new Alert(AlertType.ERROR);
+                    alert.setTitle("Unable to save to file");
+                    alert.setHeaderText("Unsaved changes detected!");
+                    alert.setContentText(e.getMessage());
+                    alert.showAndWait();
+                }
+            }
+        });
+        
+        addMenuItem(fileMenu, "Print Board", () -> {
+            // Debugging method that just prints the board
+            Alert alert = new Alert(AlertType.INFORMATION);
+            alert.setTitle("Board");
+            alert.setHeaderText(null);
+            alert.setContentText(board.toString());
+            alert.showAndWait();
+        });
+        // add a separator to the fileMenu
+        fileMenu.getItems().add(new SeparatorMenuItem());
+
+        addMenuItem(fileMenu, "Exit", () -> {
+            System.out.println("Exit");
+            primaryStage.close();
+        });
+
+        menuBar.getMenus().add(fileMenu);
+
+        //
+        // Edit
+        //
+        Menu editMenu = new Menu("Edit");
+
+        addMenuItem(editMenu, "Undo", () -> {
+            try {
+                board.undo();
+            } catch (IllegalStateException e) {
+                Alert alert = new Alert(AlertType.WARNING);
+                alert.setTitle("Unable to undo");
+                alert.setHeaderText("No moves to undo");
+                alert.setContentText(e.getMessage());
+                alert.showAndWait();
+            }
+        });
+
+        addMenuItem(editMenu, "Redo", () -> {
+            try {
+                board.redo();
+            } catch (IllegalStateException e) {
+                Alert alert = new Alert(AlertType.WARNING);
+                alert.setTitle("Unable to redo");
+                alert.setHeaderText("No moves to redo");
+                alert.setContentText(e.getMessage());
+                alert.showAndWait();
+            }
+        });
+
+        // add menu item to reset the board
+        addMenuItem(editMenu, "Reset", () -> {
+            System.out.println("Reset");
+            resetBoard();
+        });
+
+        addMenuItem(editMenu, "Show values entered", () -> {
+            System.out.println("Show all the values we've entered since we loaded the board");
+            Alert alert = new Alert(AlertType.INFORMATION);
+            alert.setTitle("Values entered");
+            alert.setHeaderText("Values entered since loading the board");
+            alert.setContentText(board.getMovesArchive());
+            alert.showAndWait();
+
+        });
+
+        // typed values cross pencil marks out instead, the space bar does the same on the canvas
+        addMenuItem(editMenu, "Pencil mode on or off", () -> {
+            System.out.println("Pencil mode on or off");
+            view.setPencilMode(!view.isPencilMode());
+        });
+
+        addMenuItem(editMenu, "Restore crossed out pencil marks", () -> {
+            System.out.println("Restore crossed out pencil marks");
+            board.clearEliminations();
+        });
+
+        menuBar.getMenus().add(editMenu);
+
+        //
+        // Hint Menu
+        //
+        Menu hintMenu = new Menu("Hints");
+
+        addMenuItem(hintMenu, "Show hint", () -> {
+            System.out.println("Show hint");
+            showHints();
+        });
+
+        addMenuItem(hintMenu, "Hide used hints", () -> {
+            System.out.println("Hide used hints");
+            hideUsedHints();
+        });
+
+        addMenuItem(hintMenu, "Hide all hints", () -> {
+            System.out.println("Hide all hints");
+            hideAllHints();
+        });
+
+        addMenuItem(hintMenu, "Rate difficulty", () -> {
+            System.out.println("Rate difficulty");
+            Board puzzle = new Board(board);
+            runSolverJob("Rating", solverService.submit(() -> StepSolver.rate(puzzle), SOLVER_TIMEOUT), difficulty -> {
+                Alert alert = new Alert(AlertType.INFORMATION);
+                alert.setTitle("Difficulty");
+                alert.setHeaderText("This board is " + difficulty.getName());
+                alert.showAndWait();
+            });
+        });
+
+        // solve
+        addMenuItem(hintMenu, "Solve", () -> {
+            System.out.println("Solve");
+            Board solving = board;
+            long version = board.getVersion();
+            runSolverJob("Solving", solverService.solve(board, SOLVER_TIMEOUT), solution -> {
+                // the board may have been swapped or changed meanwhile, then the solution is for another puzzle
+                if (solution != null && board == solving && board.getVersion() == version) {
+                    // the solver finished this one, not the player, so it stays unsolved in the library
+                    libraryId = -1;
+                    // as moves, so the solution can be undone and is kept in the session
+                    for (int row = 0; row < size; row++) {
+                        for (int col = 0; col < size; col++) {
+                            if (board.getCell(row, col) != solution.getCell(row, col)) {
+                                board.makeMove(row, col, solution.getCell(row, col));
+                            }
+                        }
+                    }
+                }
+            });
+        });
+
+        // check solvability
+        addMenuItem(hintMenu, "Check solvability", () -> {
+            System.out.println("Check solvability");
+            runSolverJob("Checking solvability", solverService.checkSolvable(board, SOLVER_TIMEOUT), solvable -> {
+                if (solvable) {
+                    Alert alert = new Alert(AlertType.INFORMATION);
+                    alert.setTitle("Solvability");
+                    alert.setHeaderText("This board is solvable");
+                    showStats(alert);
+                    alert.showAndWait();
+                } else {
+                    Alert alert = new Alert(AlertType.WARNING);
+                    alert.setTitle("Solvability");
+                    alert.setHeaderText("This board is not solvable");
+                    showStats(alert);
+                    alert.showAndWait();
+                }
+            });
+        });
+
+        // print number of solutions
+        addMenuItem(hintMenu, "Print number of solutions", () -> {
+            System.out.println("Print number of solutions");
+            runSolverJob("Counting solutions", solverService.countSolutions(board, MAX_COUNTED_SOLUTIONS, SOLVER_TIMEOUT), numSolutions -> {
+                Alert alert = new Alert(AlertType.INFORMATION);
+                alert.setTitle("Number of solutions");
+                if (numSolutions >= MAX_COUNTED_SOLUTIONS) {
+                    alert.setHeaderText("Number of solutions: at least " + MAX_COUNTED_SOLUTIONS);
+                } else {
+                    alert.setHeaderText("Number of solutions: " + numSolutions);
+                }
+                showStats(alert);
+                alert.showAndWait();
+            });
+        });
+
+        menuBar.getMenus().add(hintMenu);
+
+        //
+        // Solver Menu
+        //
+        Menu solverMenu = new Menu("Solver");
+
+        addMenuItem(solverMenu, "Use backtracking", () -> {
+            System.out.println("Use backtracking");
+            board.setSolver(new BacktrackingSolver());
+        });
+
+        addMenuItem(solverMenu, "Use constraint propagation", () -> {
+            System.out.println("Use constraint propagation");
+            board.setSolver(new PropagationSolver());
+        });
+
+        addMenuItem(solverMenu, "Use dancing links", () -> {
+            System.out.println("Use dancing links");
+            board.setSolver(new DancingLinksSolver());
+        });
+
+        addMenuItem(solverMenu, "Use parallel counting", () -> {
+            System.out.println("Use parallel counting");
+            board.setSolver(new ParallelSolver());
+        });
+
+        menuBar.getMenus().add(solverMenu);
+
+        //
+        // View Menu
+        //
+        Menu viewMenu = new Menu("View");
+
+        addMenuItem(viewMenu, "Draw on a canvas", () -> {
+            System.out.println("Draw on a canvas");
+            if (!(view instanceof CanvasBoardView)) {
+                showView(new CanvasBoardView());
+            }
+        });
+
+        addMenuItem(viewMenu, "Use text fields", () -> {
+            System.out.println("Use text fields");
+            if (!(view instanceof TextFieldBoardView)) {
+                showView(new TextFieldBoardView());
+            }
+        });
+
+        // pencil marks need the canvas, the text fields only show values
+        addMenuItem(viewMenu, "Show or hide pencil marks", () -> {
+            System.out.println("Show or hide pencil marks");
+            view.setPencilMarks(!view.isPencilMarks());
+        });
+
+        menuBar.getMenus().add(viewMenu);
+
+        //
+        // Size Menu
+        //
+        Menu sizeMenu = new Menu("Size");
+
+        for (int n = 3; n <= Board.MAX_BOX_SIZE; n++) {
+            int newBoxSize = n;
+            addMenuItem(sizeMenu, n * n + " x " + n * n, () -> {
+                System.out.println("Switch to " + newBoxSize * newBoxSize + " x " + newBoxSize * newBoxSize);
+                if (newBoxSize != boxSize) {
+                    resizeBoard(newBoxSize);
+                    startSession();
+                }
+            });
+        }
+
+        menuBar.getMenus().add(sizeMenu);
+
+        return menuBar;
+    }
+
+    // runs a solver job in the background, showing the progress bar until it finishes
+    private <T> void runSolverJob(String description, SolverService.Job<T> job, Consumer<T> onSuccess)
+    {
+        // only one search at a time, the newest one wins
+        cancelCurrentJob();
+        currentJob = job;
+        showProgress(description);
+        job.result().whenComplete((value, error) -> {
+            if (currentJob == job) {
+                currentJob = null;
+                showProgress(null);
+            }
+            if (error == null) {
+                onSuccess.accept(value);
+            } else if (error instanceof CancellationException) {
+                System.out.println(description + " was cancelled");
+            } else {
+                Alert alert = new Alert(error instanceof TimeoutException ? AlertType.WARNING : AlertType.ERROR);
+                alert.setTitle(description);
+                alert.setHeaderText(error instanceof TimeoutException ? "This is taking too long, giving up" : "Something went wrong");
+                alert.setContentText(error.getMessage());
+                alert.showAndWait();
+            }
+        });
+    }
+
+    // error is null if there is nothing more to say
+    private void showLibraryError(String message, IOException error)
+    {
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.setTitle("Puzzle library");
+        alert.setHeaderText(message);
+        if (error != null) {
+            alert.setContentText(error.getMessage());
+        }
+        alert.showAndWait();
+    }
+
+    private void cancelCurrentJob()
+    {
+        if (currentJob != null) {
+            currentJob.cancel();
+        }
+    }
+
+    // pass null to hide the progress bar
+    private void showProgress(String description)
+    {
+        progressLabel.setText(description == null ? "" : description + "...");
+        progressBox.setVisible(description != null);
+        progressBox.setManaged(description != null);
+    }
+
+    private static void writeToFile(File file, String content) throws IOException
+    {
+        Files.write(file.toPath(), content.getBytes());
+    }
+
+    // what the search behind an answer cost, if the board had to search for it
+    private void showStats(Alert alert)
+    {
+        SolverStats stats = board.getLastStats();
+        if (stats != null)
+        {
+            alert.setContentText("Last search: " + stats);
+        }
+    }
+
+        private void addMenuItem(Menu menu, String name, Runnable action)
+    {
+        MenuItem menuItem = new MenuItem(name);
+        menuItem.getStyleClass().add("menuitem");
+        menuItem.setOnAction(event -> action.run());
+        menu.getItems().add(menuItem);
+    }
+        
+    public static void main(String[] args) 
+    {
+        launch(args);
+    }
+
+    public void showHints() {
+        // the easiest step a person could take next, found on the step solver's own candidates
+        Step step = new StepSolver(board).nextStep();
+        if (step == null) {
+            Alert alert = new Alert(AlertType.INFORMATION);
+            alert.setTitle("Hint");
+            alert.setHeaderText("No hint available");
+            alert.setContentText(board.isSolved() ? "The board is solved." : "None of the known techniques helps here, or an entry is wrong.");
+            alert.showAndWait();
+            return;
+        }
+        System.out.println("Hint: " + step);
+        // a single only needs its cell pointed out, the other techniques show their whole pattern
+        int[] cells = step.isPlacement() ? new int[] {step.getPlacedCell()} : step.getCells();
+        for (int cell : cells)
+        {
+            view.setHint(step.getRow(cell), step.getCol(cell), true);
+        }
+        Alert alert = new Alert(AlertType.INFORMATION);
+        alert.setTitle("Hint");
+        alert.setHeaderText(step.getTechnique().getName());
+        alert.setContentText(step.toString());
+        alert.showAndWait();
+    }
+
+    public void hideUsedHints() {
+        // loop through the board and remove the hint from all cells which are not 0
+        for (int row = 0; row < size; row++)
+        {
+            for (int col = 0; col < size; col++)
+            {
+                if (board.getCell(row, col) != 0)
+                {
+                    view.setHint(row, col, false);
+                }
+            }
+        }
+    }
+
+    public void hideAllHints() {
+        // loop through the board and remove the hint from all cells
+        for (int row = 0; row < size; row++)
+        {
+            for (int col = 0; col < size; col++)
+            {
+                view.setHint(row, col, false);
+            }
+        }
+    }
+
+    private void fixBoard() {
+        fixBoard(board);
+    }
+
+    private void fixBoard(Board givens) {
+        // loop through the board and make the cells read only if the value is not 0
+        for (int row = 0; row < size; row++)
+        {
+            for (int col = 0; col < size; col++)
+            {
+                if (givens.getCell(row, col) != 0)
+                {
+                    view.setFixed(row, col, true);
+                }
+            }
+        }
+    }
+
+    public void unfixBoard() {
+        // loop through the board and make every cell writable again
+        for (int row = 0; row < size; row++)
+        {
+            for (int col = 0; col < size; col++)
+            {
+                view.setFixed(row, col, false);
+            }
+        }
+    }
+
+    public void resetBoard() {
+        // loop through the board and set all the values which are not fixed to 0
+        for (int row = 0; row < size; row++)
+        {
+            for (int col = 0; col < size; col++)
+            {
+                // as moves, so a reset can be undone and is kept in the session
+                if (!view.isFixed(row, col) && board.getCell(row, col) != 0) {
+                    board.makeMove(row, col, 0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package sudoku.app;
+
+import java.util.Set;
+
+import sudoku.Board;
+import sudoku.BoardListener;
+import sudoku.Candidates;
+import sudoku.Trace;
+
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.GridPane;
+
+/**
+ * The original board view: one TextField per cell, laid out in a GridPane, with the
+ * cell states (fixed, error, hint, selected) kept as CSS classes in style.css.
+ */
+class TextFieldBoardView implements BoardView
+{
+    private Board board;
+    private int boxSize;
+    private int size;
+    private final BoardListener listener = this::cellChanged;
+    private GridPane gridPane;
+    private TextField[][] textFields;
+    private boolean updatingBoard = false;
+    // which cells currently have the error style, so a change only touches fields whose state flips
+    private boolean[][] errorCells;
+    private boolean[][] fixedCells;
+    private boolean[][] hintCells;
+    private TextField selectedField;
+
+    @Override
+    public Node getNode()
+    {
+        return gridPane;
+    }
+
+    @Override
+    public void show(Board board)
+    {
+        detach();
+        this.board = board;
+        boxSize = board.getBoxSize();
+        size = board.getSize();
+        buildGrid();
+        for (int row = 0; row < size; row++)
+        {
+            for (int col = 0; col < size; col++)
+            {
+                cellChanged(row, col, 0, board.getCell(row, col));
+            }
+        }
+        board.addListener(listener);
+    }
+
+    @Override
+    public void detach()
+    {
+        if (board != null)
+        {
+            board.removeListener(listener);
+        }
+    }
+
+    @Override
+    public boolean isFixed(int row, int col)
+    {
+        return fixedCells[row][col];
+    }
+
+    @Override
+    public void setFixed(int row, int col, boolean fixed)
+    {
+        if (fixedCells[row][col] == fixed)
+        {
+            return;
+        }
+        fixedCells[row][col] = fixed;
+        TextField textField = textFields[row][col];
+        textField.setEditable(!fixed);
+        if (fixed) {
+            textField.getStyleClass().add("text-field-fixed");
+        } else {
+            textField.getStyleClass().remove("text-field-fixed");
+        }
+    }
+
+    @Override
+    public boolean isHint(int row, int col)
+    {
+        return hintCells[row][col];
+    }
+
+    @Override
+    public void setHint(int row, int col, boolean hint)
+    {
+        if (hintCells[row][col] == hint)
+        {
+            return;
+        }
+        hintCells[row][col] = hint;
+        TextField textField = textFields[row][col];
+        if (hint) {
+            textField.getStyleClass().add("text-field-hint");
+        } else {
+            textField.getStyleClass().remove("text-field-hint");
+        }
+    }
+
+    @Override
+    public void clearSelection()
+    {
+        if (selectedField != null)
+        {
+            selectedField.getStyleClass().remove("text-field-selected");
+            selectedField = null;
+        }
+    }
+
+    // a text field only holds the value, so pencil marks are left to the canvas view
+    @Override
+    public boolean isPencilMarks()
+    {
+        return false;
+    }
+
+    @Override
+    public void setPencilMarks(boolean shown)
+    {
+    }
+
+    @Override
+    public boolean isPencilMode()
+    {
+        return false;
+    }
+
+    @Override
+    public void setPencilMode(boolean on)
+    {
+    }
+
+    // (re)creates the text fields for the board's size
+    private void buildGrid()
+    {
+        RefreshEvent refresh = new RefreshEvent();
+        refresh.begin();
+        gridPane = new GridPane();
+        gridPane.setAlignment(Pos.CENTER);
+        gridPane.getStyleClass().addAll("grid-pane", "grid-" + size);
+        textFields = new TextField[size][size];
+        errorCells = new boolean[size][size];
+        fixedCells = new boolean[size][size];
+        hintCells = new boolean[size][size];
+        selectedField = null;
+
+        // create a size x size grid of text fields
+        for (int row = 0; row < size; row++)
+        {
+            for (int col = 0; col < size; col++)
+            {
+                textFields[row][col] = new TextField();
+                TextField textField = textFields[row][col];
+                
+                // setting ID so that we can look up the text field by row and col
+                // IDs are #3-4 for the 4th row and 5th column (start index at 0)
+                textField.setId(row + "-" + col);
+                gridPane.add(textField, col, row);
+                // using CSS to get the darker borders correct
+                if (row == 0 && col == 0) {
+                    // add top left class
+                    textField.getStyleClass().add("top-left-border");
+                } else if (row == 0 && col % boxSize == boxSize - 1) {
+                    // add top right class
+                    textField.getStyleClass().add("top-right-border");
+                } else if (col == 0 && row % boxSize == boxSize - 1) {
+                    // add bottom left class
+                    textField.getStyleClass().add("bottom-left-border");
+                } else if (row == 0) {
+                    // add top border class
+                    textField.getStyleClass().add("top-border");
+                } else if (col == 0) {
+                    // add left border class
+                    textField.getStyleClass().add("left-border");
+                } else if (row % boxSize == boxSize - 1 && col % boxSize == boxSize - 1)
+                {
+                    // we need a special border to highlight the bottom right
+                    textField.getStyleClass().add("bottom-right-border");
+                }
+                else if (col % boxSize == boxSize - 1) {
+                    // Thick right border
+                    textField.getStyleClass().add("right-border");
+                }
+                else if (row % boxSize == boxSize - 1) {
+                    // Thick bottom border
+                    textField.getStyleClass().add("bottom-border");
+                } else {
+                    // add an inner-border class
+                    textField.getStyleClass().add("inner-border");
+                }
+
+                textField.addEventHandler(javafx.scene.input.KeyEvent.KEY_PRESSED, event -> {
+                    textField.positionCaret(textField.getText().length());
+                    String id = textField.getId();
+                    String[] parts = id.split("-");
+                    int r = Integer.parseInt(parts[0]);
+                    int c = Integer.parseInt(parts[1]);
+                    if (event.getCode() == KeyCode.LEFT) {
+                        if (Trace.ENABLED) {
+                            Trace.log("LEFT");
+                        }
+                        // find the textfield to the left of this one and set the focus to it
+                        
+                        int c2 = (c-1+size)%size;
+
+                        TextField tf = textFields[r][c2];
+                        tf.requestFocus();
+                        tf.positionCaret(tf.getText().length());
+                        setHighlight(tf);
+                    } else if (event.getCode() == KeyCode.RIGHT) {
+                        if (Trace.ENABLED) {
+                            Trace.log("RIGHT");
+                        }
+                        // find the textfield to the right of this one and set the focus to it
+                        int c2 = (c+1)%size;
+                        TextField tf = textFields[r][c2];
+                        tf.requestFocus();
+                        tf.positionCaret(tf.getText().length());
+                        setHighlight(tf);
+                    } else if (event.getCode() == KeyCode.UP) {
+                        if (Trace.ENABLED) {
+                            Trace.log("UP");
+                        }
+                        // find the textfield above this one and set the focus to it
+                        int r2 = (r-1+size)%size;
+                        TextField tf = textFields[r2][c];
+                        tf.requestFocus();
+                        tf.positionCaret(tf.getText().length());
+                        setHighlight(tf);
+                    } else if (event.getCode() == KeyCode.DOWN) {
+                        if (Trace.ENABLED) {
+                            Trace.log("DOWN");
+                        }
+                        // find the textfield below this one and set the focus to it
+                        int r2 = (r+1)%size;
+                        TextField tf = textFields[r2][c];
+                        tf.requestFocus();
+                        tf.positionCaret(tf.getText().length());
+                        setHighlight(tf);
+                    }
+                });
+
+                // add a handler for when we select a textfield
+                textField.setOnMouseClicked(event -> {
+                    // move the caret to the end of the text
+                    textField.positionCaret(textField.getText().length());
+                    // toggle highlighting
+                    setHighlight(textField);
+                });
+
+                // add a handler for when we lose focus on a textfield
+                textField.focusedProperty().addListener((observable, oldValue, newValue) -> {
+                    if (!newValue)
+                    {
+                        // remove the highlight when we lose focus
+                        textField.getStyleClass().remove("text-field-selected");
+                    }
+                });
+
+                // RIGHT-CLICK handler
+                // add handler for when we RIGHT-CLICK a textfield
+                // to bring up a selection of possible values
+                textField.setOnContextMenuRequested(event -> {
+                    // change the textfield background to red while keeping the rest of the css the same
+                    textField.getStyleClass().add("text-field-highlight");
+                    Alert alert = new Alert(AlertType.INFORMATION);
+                    alert.setTitle("Possible values");
+                    // find the row and column of the text field
+                    String id = textField.getId();
+                    String[] parts = id.split("-");
+                    int r = Integer.parseInt(parts[0]);
+                    int c = Integer.parseInt(parts[1]);
+                    Set<Integer> vals = board.getPossibleValues(r, c);
+                    String t = vals.toString();
+                    t = t.substring(1, t.length()-1);
+                    alert.setContentText("Possible values for this square: " + t);
+                    alert.showAndWait();
+                    textField.getStyleClass().remove("text-field-highlight");
+                });
+
+                // using a listener instead of a KEY_TYPED event handler
+                // KEY_TYPED requires the user to hit ENTER to trigger the event
+                textField.textProperty().addListener((observable, oldValue, newValue) -> {
+                    if (updatingBoard)
+                    {
+                        return;
+                    }
+
+                    String id = textField.getId();
+                    String[] parts = id.split("-");
+                    int r = Integer.parseInt(parts[0]);
+                    int c = Integer.parseInt(parts[1]);
+                    
+                    if (newValue.length() == 0 && oldValue.length() > 0)
+                    {
+                        textField.setText("");
+                        board.makeMove(r, c, 0);
+
+                        return;
+                    }
+
+                    if (newValue.length() == 0)
+                    {
+                        textField.setText("");
+                        board.makeMove(r, c, 0);
+
+                        return;
+                    }
+
+                    // values above 9 are typed as letters, A for 10 and so on
+                    int last = Board.valueOf(newValue.charAt(newValue.length() - 1));
+                    int first = Board.valueOf(newValue.charAt(0));
+
+                    if (last >= 1 && last <= size) {
+                        textField.setText(String.valueOf(Board.symbolOf(last)));
+                        board.makeMove(r, c, last);
+                    } else if (first >= 1 && first <= size) {
+                        textField.setText(String.valueOf(Board.symbolOf(first)));
+                        board.makeMove(r, c, first);
+                    } else {
+                        textField.setText("");
+                    }
+                });
+            }
+        }
+        refresh.kind = "grid";
+        refresh.cells = size * size;
+        refresh.commit();
+    }
+
+    // keeps a text field in step with its cell, called for every cell the board changes
+    private void cellChanged(int row, int col, int oldValue, int newValue)
+    {
+        RefreshEvent event = new RefreshEvent();
+        event.begin();
+        TextField textField = textFields[row][col];
+        String text = newValue > 0 ? String.valueOf(Board.symbolOf(newValue)) : "";
+        if (!textField.getText().equals(text))
+        {
+            updatingBoard = true;
+            textField.setText(text);
+            updatingBoard = false;
+        }
+        updateErrors(row, col);
+        event.kind = "cell";
+        event.cells = 1;
+        event.commit();
+    }
+
+    // rechecks a cell and its peers, the only cells whose errors a change to it can affect
+    private void updateErrors(int row, int col) {
+        for (int i = 0; i < size; i++)
+        {
+            updateError(row, i);
+            updateError(i, col);
+        }
+        int startRow = row / boxSize * boxSize;
+        int startCol = col / boxSize * boxSize;
+        for (int r = startRow; r < startRow + boxSize; r++)
+        {
+            for (int c = startCol; c < startCol + boxSize; c++)
+            {
+                updateError(r, c);
+            }
+        }
+    }
+
+    // adds the error class to a text field that has an impossible value, or removes it
+    private void updateError(int row, int col) {
+        int value = board.getCell(row, col);
+        boolean error = value != 0 && !Candidates.contains(board.getCandidateMask(row, col), value);
+        if (error == errorCells[row][col]) {
+            return;
+        }
+        errorCells[row][col] = error;
+        TextField textField = textFields[row][col];
+        if (error) {
+            textField.getStyleClass().add("text-field-error");
+        } else {
+            textField.getStyleClass().remove("text-field-error");
+        }
+    }
+
+    private void setHighlight(TextField textField) {
+        // only the previously selected field can have the class
+        if (selectedField != null) {
+            selectedField.getStyleClass().remove("text-field-selected");
+        }
+        selectedField = textField;
+        textField.getStyleClass().add("text-field-selected");
+    }
+}
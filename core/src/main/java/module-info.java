@@ -0,0 +1,10 @@
+/**
+ * The sudoku model, solvers, generator and puzzle file formats.
+ */
+module sudoku.core {
+    // Flight Recorder events for solver runs, and per-thread allocation counts for SolverStats
+    requires jdk.jfr;
+    requires jdk.management;
+
+    exports sudoku;
+}
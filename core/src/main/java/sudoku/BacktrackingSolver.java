@@ -0,0 +1,142 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The original recursive search: fill the first empty cell with each of its possible
+ * values in turn. Each step gets its own BoardState, which costs one small array
+ * rather than a whole Board.
+ */
+public class BacktrackingSolver implements Solver
+{
+    public BacktrackingSolver()
+    {
+    }
+
+    @Override
+    public Board solve(Board board)
+    {
+        return solve(board, null);
+    }
+
+    @Override
+    public Board solve(Board board, SolverStats stats)
+    {
+        BoardState state = BoardState.of(board);
+        // the search only checks the cells it fills, so clashing givens are caught here
+        if (!state.isConsistent())
+        {
+            return null;
+        }
+        Counters counters = new Counters();
+        BoardState result = generateCell(state, counters, 0);
+        counters.report(stats);
+        if (result == null)
+        {
+            return null;
+        }
+        // a copy of the board keeps its solver and size, only the cells come from the search
+        Board solution = new Board(board);
+        result.copyTo(solution);
+        return solution;
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit)
+    {
+        return countSolutions(board, limit, null);
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit, SolverStats stats)
+    {
+        BoardState state = BoardState.of(board);
+        if (!state.isConsistent())
+        {
+            return 0;
+        }
+        Counters counters = new Counters();
+        int count = numSolutionsHelper(state, limit, counters, 0);
+        counters.report(stats);
+        return count;
+    }
+
+    // this solver doesn't propagate, so there are only nodes, dead ends and depth to count
+    private static class Counters
+    {
+        private long nodes;
+        private long backtracks;
+        private int maxDepth;
+
+        void visit(int depth)
+        {
+            nodes++;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        void report(SolverStats stats)
+        {
+            if (stats != null)
+            {
+                stats.add(nodes, backtracks, maxDepth, 0);
+            }
+        }
+    }
+
+    private int numSolutionsHelper(BoardState state, int limit, Counters counters, int depth) {
+        Solver.checkCancelled();
+        counters.visit(depth);
+        int numSolutions = 0;
+
+        // get the next empty cell, then try setting it to the next possible value
+        int cell = state.findEmptyCell();
+        if (cell < 0) {
+            return numSolutions + 1;
+        }
+
+        int mask = state.getCandidateMask(cell);
+        if (mask == 0) {
+            counters.backtracks++;
+        }
+
+        // try setting the cell to each possible value
+        for (; mask != 0 && numSolutions < limit; mask &= mask - 1) {
+            numSolutions += numSolutionsHelper(state.withCell(cell, Candidates.first(mask)), limit - numSolutions, counters, depth + 1);
+        }
+
+        return numSolutions;
+    }
+
+    private BoardState generateCell(BoardState state, Counters counters, int depth) {
+        Solver.checkCancelled();
+        counters.visit(depth);
+
+        // get the next empty cell, then try setting it to the next possible value
+        int cell = state.findEmptyCell();
+        if (cell < 0) {
+            return state;
+        }
+
+        List<Integer> possibleValues = new ArrayList<>();
+        for (int mask = state.getCandidateMask(cell); mask != 0; mask &= mask - 1) {
+            possibleValues.add(Candidates.first(mask));
+        }
+        if (possibleValues.isEmpty()) {
+            counters.backtracks++;
+        }
+        // shuffle the possible values
+        Collections.shuffle(possibleValues);
+
+        // recursively try setting the cell to each possible value
+        for (int value : possibleValues) {
+            BoardState result = generateCell(state.withCell(cell, value), counters, depth + 1);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,863 @@
+package sudoku;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.Stack;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+
+public class Board
+{
+    // the box sizes the bitmasks can hold, which means boards of 4x4 up to 25x25
+    public static final int MIN_BOX_SIZE = 2;
+    public static final int MAX_BOX_SIZE = 5;
+
+    private final int boxSize;
+    // the number of rows, columns, boxes and values: boxSize squared
+    private final int size;
+    private int[][] board;
+    private Solver solver = new PropagationSolver();
+    private MoveJournal moves;
+
+    // occupancy masks for each row, column and box (see Candidates for the bit layout)
+    private int[] rowMasks;
+    private int[] colMasks;
+    private int[] boxMasks;
+    // how many cells of each unit hold each value; the user is allowed to enter duplicates,
+    // so a bit can only be cleared once the last cell holding that value is emptied
+    private int[][] rowCounts;
+    private int[][] colCounts;
+    private int[][] boxCounts;
+    // bumped on every cell change; a memo below only counts while its version matches
+    private long version;
+    // a solution of the board as it is, flattened row by row, or null if it has none
+    private int[] knownSolution;
+    private long solutionVersion = -1;
+    // the number of solutions found when searching with knownCountLimit; exact if below it
+    private int knownCount;
+    private int knownCountLimit;
+    private long countVersion = -1;
+    // the search being measured, or the last one; nested searches add to the outermost
+    private SolverStats stats;
+    private int runDepth;
+    // pencil marks the player crossed out, per cell as candidate masks; null until the first one
+    private int[] eliminations;
+    // copies made by the solvers start without listeners, so they stay cheap to change
+    private List<BoardListener> listeners = new ArrayList<>();
+    private List<MoveListener> moveListeners = new ArrayList<>();
+
+    public Board()
+    {
+        this(3);
+    }
+
+    // an empty board made of boxSize x boxSize boxes, so 3 is the usual 9x9 and 4 is 16x16
+    public Board(int boxSize)
+    {
+        checkBoxSize(boxSize);
+        this.boxSize = boxSize;
+        size = boxSize * boxSize;
+        board = new int[size][size];
+        moves = new MoveJournal();
+        rowMasks = new int[size];
+        colMasks = new int[size];
+        boxMasks = new int[size];
+        rowCounts = new int[size][size + 1];
+        colCounts = new int[size][size + 1];
+        boxCounts = new int[size][size + 1];
+    }
+
+    public Board(Board b)
+    {
+        solver = b.solver;
+        boxSize = b.boxSize;
+        size = b.size;
+        board = new int[size][];
+        for (int r = 0; r < size; r++)
+        {
+            board[r] = b.board[r].clone();
+        }
+        // a copy starts its own history, so moves made on it can be undone like on any board
+        moves = new MoveJournal();
+        version = b.version;
+        knownSolution = b.knownSolution;
+        solutionVersion = b.solutionVersion;
+        knownCount = b.knownCount;
+        knownCountLimit = b.knownCountLimit;
+        countVersion = b.countVersion;
+        eliminations = b.eliminations == null ? null : b.eliminations.clone();
+        rowMasks = b.rowMasks.clone();
+        colMasks = b.colMasks.clone();
+        boxMasks = b.boxMasks.clone();
+        rowCounts = new int[size][];
+        colCounts = new int[size][];
+        boxCounts = new int[size][];
+        for (int i = 0; i < size; i++)
+        {
+            rowCounts[i] = b.rowCounts[i].clone();
+            colCounts[i] = b.colCounts[i].clone();
+            boxCounts[i] = b.boxCounts[i].clone();
+        }
+    }
+
+    /**
+     * Reads the first puzzle of a file in any format PuzzleImporter accepts, such as
+     * a grid of whitespace-separated numbers, row by row, with 0 for empty cells. The
+     * size of the board follows from the file, and clashing givens are rejected.
+     */
+    public static Board loadBoard(InputStream in)
+    {
+        Board board;
+        try (PuzzleImporter importer = new PuzzleImporter(in))
+        {
+            if (!importer.hasNext())
+            {
+                throw new IllegalArgumentException("Invalid board: no puzzle found");
+            }
+            board = importer.next();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        if (Trace.ENABLED)
+        {
+            Trace.log("the new board is: " + board);
+        }
+        return board;
+    }
+
+    // like loadBoard(in), for a board that must have the given box size
+    public static Board loadBoard(InputStream in, int boxSize)
+    {
+        checkBoxSize(boxSize);
+        Board board = loadBoard(in);
+        if (board.boxSize != boxSize)
+        {
+            throw new IllegalArgumentException("Invalid board: expected " + boxSize * boxSize + "x" + boxSize * boxSize + " but got " + board.size + "x" + board.size);
+        }
+        return board;
+    }
+
+    static void checkBoxSize(int boxSize)
+    {
+        if (boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE)
+        {
+            throw new IllegalArgumentException("Box size must be between " + MIN_BOX_SIZE + " and " + MAX_BOX_SIZE);
+        }
+    }
+
+    // the box size of a board with this many cells, or 0 if there is none
+    static int boxSizeFor(int cells)
+    {
+        for (int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++)
+        {
+            if (boxSize * boxSize * boxSize * boxSize == cells)
+            {
+                return boxSize;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads a board from a single line with one character per cell, row by row, with
+     * '0' or '.' for empty cells. Values above 9 are the letters A (10) to P (25), and
+     * the size of the board follows from the length of the line, so 81 characters is a
+     * 9x9 board. Unlike loadBoard this does not reject clashing givens, the solvers
+     * simply report that such a board has no solution.
+     */
+    public static Board fromLine(String line)
+    {
+        int boxSize = boxSizeFor(line.length());
+        if (boxSize == 0)
+        {
+            throw new IllegalArgumentException("Invalid board: expected a square board such as 81 cells but got " + line.length());
+        }
+        Board board = new Board(boxSize);
+        int size = board.size;
+        for (int i = 0; i < line.length(); i++)
+        {
+            char ch = line.charAt(i);
+            if (ch == '0' || ch == '.')
+            {
+                continue;
+            }
+            int value = valueOf(ch);
+            if (value < 1 || value > size)
+            {
+                throw new IllegalArgumentException("Invalid board: unexpected character '" + ch + "' at cell " + i);
+            }
+            board.rawSetCell(i / size, i % size, value);
+        }
+        return board;
+    }
+
+    // the board as a single line, one character per cell (see fromLine) with '.' for empty cells
+    public String toLine()
+    {
+        StringBuilder sb = new StringBuilder(size * size);
+        for (int row = 0; row < size; row++)
+        {
+            for (int col = 0; col < size; col++)
+            {
+                int value = getCell(row, col);
+                sb.append(value == 0 ? '.' : symbolOf(value));
+            }
+        }
+        return sb.toString();
+    }
+
+    // the character fromLine and toLine use for a value: digits, then A for 10 up to P for 25
+    public static char symbolOf(int value)
+    {
+        return value < 10 ? (char) ('0' + value) : (char) ('A' + value - 10);
+    }
+
+    // the value of a cell character, or -1 if it isn't one
+    public static int valueOf(char ch)
+    {
+        if (ch >= '0' && ch <= '9')
+        {
+            return ch - '0';
+        }
+        char upper = Character.toUpperCase(ch);
+        if (upper >= 'A' && upper <= 'P')
+        {
+            return upper - 'A' + 10;
+        }
+        return -1;
+    }
+
+    public int getBoxSize()
+    {
+        return boxSize;
+    }
+
+    public int getSize()
+    {
+        return size;
+    }
+
+    public Solver getSolver()
+    {
+        return solver;
+    }
+
+    public void setSolver(Solver solver)
+    {
+        this.solver = solver;
+    }
+
+    public boolean isLegal(int row, int col, int value)
+    {
+        return value >= 1 && value <= size;
+    }
+
+    public void setCell(int row, int col, int value)
+    {
+        if (value < 0 || value > size)
+        {
+            throw new IllegalArgumentException("Value must be between 1 and " + size + " (or 0 to reset a value)");
+        }
+        // NOTE: I removed the check for possible values because I want to allow the user to input any value.
+        // I made it so that instead it will set the color to red.
+
+        // based on other values in the sudoku grid
+        rawSetCell(row, col, value);
+    }
+    public void rawSetCell(int row, int col, int value)
+    {
+        int oldValue = board[row][col];
+        if (oldValue == value)
+        {
+            return;
+        }
+        int box = boxIndex(row, col);
+        if (oldValue != 0)
+        {
+            int bit = Candidates.bit(oldValue);
+            if (--rowCounts[row][oldValue] == 0) rowMasks[row] &= ~bit;
+            if (--colCounts[col][oldValue] == 0) colMasks[col] &= ~bit;
+            if (--boxCounts[box][oldValue] == 0) boxMasks[box] &= ~bit;
+        }
+        if (value != 0)
+        {
+            int bit = Candidates.bit(value);
+            rowCounts[row][value]++;
+            colCounts[col][value]++;
+            boxCounts[box][value]++;
+            rowMasks[row] |= bit;
+            colMasks[col] |= bit;
+            boxMasks[box] |= bit;
+        }
+        board[row][col] = value;
+        updateMemos(row, col, oldValue, value);
+        for (BoardListener listener : listeners)
+        {
+            listener.cellChanged(row, col, oldValue, value);
+        }
+    }
+
+    /**
+     * Keeps the solution and count memos across a change when they still hold. A solution
+     * stays a solution when a cell is emptied or given its solution value, and a board with
+     * none keeps having none as values are added. Emptying a cell can only add solutions,
+     * so a count becomes a lower bound, and a unique solution stays unique when a cell is
+     * filled to match it.
+     */
+    private void updateMemos(int row, int col, int oldValue, int value)
+    {
+        long previous = version++;
+        boolean placed = oldValue == 0 && value != 0;
+        boolean solutionKept = false;
+        if (solutionVersion == previous)
+        {
+            if (knownSolution == null)
+            {
+                solutionKept = placed;
+            }
+            else
+            {
+                solutionKept = value == 0 || value == knownSolution[row * size + col];
+            }
+            if (solutionKept)
+            {
+                solutionVersion = version;
+            }
+        }
+        if (countVersion == previous)
+        {
+            boolean exact = knownCount < knownCountLimit;
+            if (value == 0 && knownCount > 0)
+            {
+                knownCountLimit = Math.min(knownCountLimit, knownCount);
+                countVersion = version;
+            }
+            else if (placed && (knownCount == 0 || knownCount == 1 && exact && solutionKept))
+            {
+                countVersion = version;
+            }
+        }
+    }
+
+    public void addListener(BoardListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BoardListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    public void addMoveListener(MoveListener listener)
+    {
+        moveListeners.add(listener);
+    }
+
+    public void removeMoveListener(MoveListener listener)
+    {
+        moveListeners.remove(listener);
+    }
+
+    public int boxIndex(int row, int col)
+    {
+        return row / boxSize * boxSize + col / boxSize;
+    }
+
+    public int getCell(int row, int col)
+    {
+        return board[row][col];
+    }
+
+    public boolean hasValue(int row, int col)
+    {
+        return getCell(row, col) > 0;
+    }
+
+    /**
+     * Returns the values that no peer of (row, col) holds, as a bitmask (see Candidates).
+     * The cell's own value is ignored, so a filled cell reports whether its value still fits.
+     */
+    public int getCandidateMask(int row, int col)
+    {
+        int box = boxIndex(row, col);
+        int used = rowMasks[row] | colMasks[col] | boxMasks[box];
+        int value = board[row][col];
+        // the cell itself is counted in its units, so only keep its bit if some peer holds it too
+        if (value != 0 && rowCounts[row][value] == 1 && colCounts[col][value] == 1 && boxCounts[box][value] == 1)
+        {
+            used &= ~Candidates.bit(value);
+        }
+        return Candidates.all(size) & ~used;
+    }
+
+    /**
+     * The pencil marks of a cell: its candidates, less the ones the player crossed out,
+     * or 0 for a filled cell. The candidates come from the row, column and box masks,
+     * which each move updates in place, so this never looks at more than the cell.
+     */
+    public int getPencilMarks(int row, int col)
+    {
+        if (board[row][col] != 0)
+        {
+            return 0;
+        }
+        int marks = getCandidateMask(row, col);
+        return eliminations == null ? marks : marks & ~eliminations[row * size + col];
+    }
+
+    public boolean isEliminated(int row, int col, int value)
+    {
+        return eliminations != null && Candidates.contains(eliminations[row * size + col], value);
+    }
+
+    /**
+     * Crosses a pencil mark out of a cell, or puts it back. Eliminations are the
+     * player's notes rather than moves, so they aren't undone or kept in the session,
+     * and they stay with the cell while it is filled.
+     */
+    public void toggleElimination(int row, int col, int value)
+    {
+        if (value < 1 || value > size)
+        {
+            throw new IllegalArgumentException("Value must be between 1 and " + size);
+        }
+        if (eliminations == null)
+        {
+            eliminations = new int[size * size];
+        }
+        eliminations[row * size + col] ^= Candidates.bit(value);
+        for (BoardListener listener : listeners)
+        {
+            listener.eliminationsChanged(row, col);
+        }
+    }
+
+    public void clearEliminations()
+    {
+        if (eliminations == null)
+        {
+            return;
+        }
+        int[] cleared = eliminations;
+        eliminations = null;
+        for (int i = 0; i < cleared.length; i++)
+        {
+            if (cleared[i] != 0)
+            {
+                for (BoardListener listener : listeners)
+                {
+                    listener.eliminationsChanged(i / size, i % size);
+                }
+            }
+        }
+    }
+
+    public int getCandidateCount(int row, int col)
+    {
+        return Candidates.count(getCandidateMask(row, col));
+    }
+
+    public Set<Integer> getPossibleValues(int row, int col)
+    {
+        return Candidates.asSet(getCandidateMask(row, col));
+    }
+
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < size; row++)
+        {
+            for (int col = 0; col < size; col++)
+            {
+                sb.append(getCell(row, col));
+                if (col < size - 1)
+                {
+                    sb.append(" ");
+                }
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    public void addMove(Move move)
+    {
+        recordMove(move.pack());
+    }
+
+    private void recordMove(int move)
+    {
+        moves.record(move);
+        for (MoveListener listener : moveListeners)
+        {
+            listener.moveMade(move);
+        }
+    }
+
+    public void makeMove(int r, int c, int value) {
+        if (value == 0 || isLegal(r, c, value)) {
+            int oldValue = getCell(r, c);
+            if (Trace.ENABLED) {
+                Trace.log("Setting cell: " + r + ", " + c + " = " + value);
+            }
+            setCell(r, c, value);
+            if (oldValue != value) {
+                if (Trace.ENABLED) {
+                    Trace.log("adding move: " + r + ", " + c + " = " + oldValue + " to " + value);
+                }
+                recordMove(Move.pack(r, c, oldValue, value));
+            }
+        } else {
+            throw new IllegalArgumentException("Invalid move: " + r + ", " + c + " = " + value);
+        }
+    }
+
+    public String getMovesArchive()
+    {
+        StringBuilder sb = new StringBuilder(moves.size() * 28);
+        try
+        {
+            moves.export(sb);
+        }
+        catch (IOException e)
+        {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    // streams the archive straight to out, for histories too long to want as one String
+    public void writeMovesArchive(Appendable out) throws IOException
+    {
+        moves.export(out);
+    }
+
+    public MoveJournal getMoves()
+    {
+        return moves;
+    }
+
+    /**
+     * Caps how many moves are kept for undo and in the archive; the oldest are dropped
+     * beyond that. 0 means no limit. The current history is cleared.
+     */
+    public void setMoveLimit(int limit)
+    {
+        moves = new MoveJournal(limit);
+    }
+
+    public void clearMoves()
+    {
+        moves.clear();
+    }
+
+    public boolean canUndo()
+    {
+        return moves.canUndo();
+    }
+
+    public boolean canRedo()
+    {
+        return moves.canRedo();
+    }
+
+    public void undo()
+    {
+        int move = moves.undo();
+        Move.unpack(move).undo(this);
+        for (MoveListener listener : moveListeners)
+        {
+            listener.moveUndone(move);
+        }
+    }
+
+    public void redo()
+    {
+        int move = moves.redo();
+        Move.unpack(move).redo(this);
+        for (MoveListener listener : moveListeners)
+        {
+            listener.moveRedone(move);
+        }
+    }
+
+    public boolean isSolved()
+    {
+        for (int r = 0; r < size; r++)
+        {
+            for (int c = 0; c < size; c++)
+            {
+                if (getCell(r, c) == 0 || !Candidates.contains(getCandidateMask(r, c), getCell(r, c)))
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public void clearBoard()
+    {
+        clearMoves();
+        clearEliminations();
+        for (int r = 0; r < size; r++)
+        {
+            for (int c = 0; c < size; c++)
+            {
+                rawSetCell(r, c, 0);
+            }
+        }
+    }
+
+    public void generateRandomBoard() {
+        clearBoard();
+        Board newBoard;
+        SolveEvent event = startRun("generate");
+        try {
+            newBoard = solver.solve(this, stats);
+        } finally {
+            finishRun(event);
+        }
+        copy(newBoard);
+        // a full grid is its own only solution, and stays the solution as cells are emptied
+        rememberSolution(version, newBoard);
+        rememberCount(version, 1, Integer.MAX_VALUE);
+    }
+
+    public void generateMinimumSolvable() {
+        SolveEvent event = startRun("generate minimum");
+        try {
+            removeClues();
+        } finally {
+            finishRun(event);
+        }
+    }
+
+    private void removeClues() {
+        generateRandomBoard();
+
+        // store a list of all possible cells
+        Stack<int[]> possibleCells = new Stack<>();
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                possibleCells.push(new int[] {r, c});
+            }
+        }
+        // randomize
+        Collections.shuffle(possibleCells);
+
+        // try removing each cell and checking if the board is still solvable
+        // remove only one cell
+        for (int i = 0; i < size * size; i++) {
+            int[] coords = possibleCells.pop();
+            int r = coords[0];
+            int c = coords[1];
+            int value = getCell(r, c);
+            rawSetCell(r, c, 0);
+            if (getSolutionCount() == SolutionCount.MULTIPLE) {
+                rawSetCell(r, c, value);
+                if (Trace.ENABLED) {
+                    Trace.log("COMPLETE!");
+                }
+                return;
+            }
+        }
+    }
+
+    public int numSolutions() {
+        return numSolutions(Integer.MAX_VALUE);
+    }
+
+    // counts solutions, giving up once limit of them have been found
+    public int numSolutions(int limit) {
+        int count = getKnownCount(limit);
+        if (count < 0) {
+            SolveEvent event = startRun("count");
+            try {
+                count = solver.countSolutions(this, limit, stats);
+            } finally {
+                finishRun(event);
+            }
+            rememberCount(version, count, limit);
+        }
+        return count;
+    }
+
+    // only searches far enough to tell none, one and more than one solution apart
+    public SolutionCount getSolutionCount() {
+        return SolutionCount.of(numSolutions(2));
+    }
+
+    public void copy(Board b) {
+        if (b.size != size) {
+            throw new IllegalArgumentException("Cannot copy a " + b.size + "x" + b.size + " board onto a " + size + "x" + size + " board");
+        }
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                rawSetCell(r, c, b.getCell(r, c));
+            }
+        }
+    }
+
+    public boolean getSolvable() {
+        if (countVersion == version && knownCount > 0) {
+            return true;
+        }
+        return findSolution() != null;
+    }
+
+    public void solve() {
+        Board solution = findSolution();
+        if (solution != null) {
+            copy(solution);
+        }
+    }
+
+    /**
+     * Returns a solved copy of the board, or null if it has none. The solution is
+     * remembered, so asking again costs nothing until a move contradicts it.
+     */
+    public Board findSolution() {
+        if (solutionVersion != version) {
+            SolveEvent event = startRun("solve");
+            try {
+                rememberSolution(version, solver.solve(this, stats));
+            } finally {
+                finishRun(event);
+            }
+        }
+        if (knownSolution == null) {
+            return null;
+        }
+        Board solution = new Board(this);
+        for (int i = 0; i < knownSolution.length; i++) {
+            solution.rawSetCell(i / size, i % size, knownSolution[i]);
+        }
+        return solution;
+    }
+
+    /**
+     * What the last search run by this board cost, or null if it hasn't run one. A
+     * generation counts as one run, including the solution counts it makes along the
+     * way. Answers that came from the remembered solution or count don't run anything.
+     */
+    public SolverStats getLastStats() {
+        return stats;
+    }
+
+    // starts measuring a search, unless it is part of one that is already being measured
+    private SolveEvent startRun(String operation) {
+        if (runDepth++ > 0) {
+            return null;
+        }
+        stats = new SolverStats();
+        SolveEvent event = new SolveEvent();
+        event.operation = operation;
+        event.begin();
+        stats.start();
+        return event;
+    }
+
+    private void finishRun(SolveEvent event) {
+        if (--runDepth > 0) {
+            return;
+        }
+        stats.stop();
+        event.end();
+        if (event.shouldCommit()) {
+            event.solver = solver.getClass().getSimpleName();
+            event.size = size;
+            event.nodes = stats.getNodes();
+            event.backtracks = stats.getBacktracks();
+            event.maxDepth = stats.getMaxDepth();
+            event.propagations = stats.getPropagations();
+            event.allocated = stats.getAllocatedBytes();
+            event.commit();
+        }
+    }
+
+    // bumped whenever a cell changes, so callers can tell whether the board is still the one they saw
+    public long getVersion() {
+        return version;
+    }
+
+    // the value of (row, col) in the remembered solution, or 0 if there is none or it is out of date
+    public int getKnownSolutionValue(int row, int col) {
+        if (solutionVersion != version || knownSolution == null) {
+            return 0;
+        }
+        return knownSolution[row * size + col];
+    }
+
+    // the remembered count for the given limit, or -1 if it isn't known
+    private int getKnownCount(int limit) {
+        if (countVersion != version) {
+            return -1;
+        }
+        if (knownCount < knownCountLimit || knownCount >= limit) {
+            return Math.min(knownCount, limit);
+        }
+        return -1;
+    }
+
+    // takes over the stats of a copy's last search, and what it found if neither has changed since the copy was made
+    void rememberFrom(Board copy) {
+        if (copy.stats != null) {
+            stats = copy.stats;
+        }
+        if (copy.version != version || copy.size != size) {
+            return;
+        }
+        if (copy.solutionVersion == version) {
+            knownSolution = copy.knownSolution;
+            solutionVersion = version;
+        }
+        if (copy.countVersion == version) {
+            rememberCount(version, copy.knownCount, copy.knownCountLimit);
+        }
+    }
+
+    // remembers a solution (or null for none) found for the board at the given version
+    private void rememberSolution(long atVersion, Board solution) {
+        if (atVersion != version) {
+            return;
+        }
+        if (solution == null) {
+            knownSolution = null;
+            rememberCount(atVersion, 0, Integer.MAX_VALUE);
+        } else {
+            int[] cells = new int[size * size];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = solution.getCell(i / size, i % size);
+            }
+            knownSolution = cells;
+        }
+        solutionVersion = version;
+    }
+
+    // remembers a count found with the given limit for the board at the given version
+    private void rememberCount(long atVersion, int count, int limit) {
+        if (atVersion != version) {
+            return;
+        }
+        if (countVersion == version && knownCount < knownCountLimit) {
+            // already exact
+            return;
+        }
+        knownCount = count;
+        knownCountLimit = limit;
+        countVersion = version;
+        if (count == 0) {
+            knownSolution = null;
+            solutionVersion = version;
+        }
+    }
+}
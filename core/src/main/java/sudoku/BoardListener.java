@@ -0,0 +1,17 @@
+package sudoku;
+
+/**
+ * Notified by a Board whenever one of its cells changes value, whether through a
+ * move, an undo, a copy or a reset. Only fires for cells whose value actually changed.
+ * A value change also changes the pencil marks of the cell's peers; that is left to
+ * the listener, since it knows which peers it is showing.
+ */
+public interface BoardListener
+{
+    void cellChanged(int row, int col, int oldValue, int newValue);
+
+    // the player crossed a pencil mark out of the cell or put it back
+    default void eliminationsChanged(int row, int col)
+    {
+    }
+}
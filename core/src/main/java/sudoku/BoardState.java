@@ -0,0 +1,237 @@
+package sudoku;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The cells of a board and nothing else: one byte per cell, row by row, plus a
+ * Zobrist hash of them. A state never changes, withCell() returns a new one with
+ * the hash updated for just that cell, so the search can keep one state per level
+ * instead of copying whole Boards with their masks, memos and listeners. Equal
+ * states have equal hashes, which makes them good keys for caches and
+ * transposition tables.
+ */
+public final class BoardState
+{
+    // a random number per box size, cell and value; the hash is those of the filled cells xored together
+    private static final long[][][] ZOBRIST = new long[Board.MAX_BOX_SIZE + 1][][];
+
+    static
+    {
+        // a fixed seed, so hashes are the same from one run to the next
+        Random random = new Random(0x5D0C5EEDL);
+        for (int boxSize = Board.MIN_BOX_SIZE; boxSize <= Board.MAX_BOX_SIZE; boxSize++)
+        {
+            int size = boxSize * boxSize;
+            long[][] table = new long[size * size][size + 1];
+            for (long[] cell : table)
+            {
+                // value 0 stays 0, so empty cells don't change the hash
+                for (int v = 1; v <= size; v++)
+                {
+                    cell[v] = random.nextLong();
+                }
+            }
+            ZOBRIST[boxSize] = table;
+        }
+    }
+
+    private final Units units;
+    private final byte[] cells;
+    private final long hash;
+
+    private BoardState(Units units, byte[] cells, long hash)
+    {
+        this.units = units;
+        this.cells = cells;
+        this.hash = hash;
+    }
+
+    // an empty board made of boxSize x boxSize boxes
+    public static BoardState empty(int boxSize)
+    {
+        Board.checkBoxSize(boxSize);
+        Units units = Units.of(boxSize);
+        return new BoardState(units, new byte[units.cells], 0);
+    }
+
+    public static BoardState of(Board board)
+    {
+        Units units = Units.of(board.getBoxSize());
+        long[][] table = ZOBRIST[units.boxSize];
+        byte[] cells = new byte[units.cells];
+        long hash = 0;
+        for (int i = 0; i < cells.length; i++)
+        {
+            int value = board.getCell(i / units.size, i % units.size);
+            cells[i] = (byte) value;
+            hash ^= table[i][value];
+        }
+        return new BoardState(units, cells, hash);
+    }
+
+    // the first size * size values of cells, row by row, which must be in range
+    static BoardState of(int boxSize, int[] cells)
+    {
+        Units units = Units.of(boxSize);
+        long[][] table = ZOBRIST[boxSize];
+        byte[] bytes = new byte[units.cells];
+        long hash = 0;
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = (byte) cells[i];
+            hash ^= table[i][cells[i]];
+        }
+        return new BoardState(units, bytes, hash);
+    }
+
+    // a new Board holding these cells, with the default solver
+    public Board toBoard()
+    {
+        Board board = new Board(units.boxSize);
+        copyTo(board);
+        return board;
+    }
+
+    // writes these cells over board's, which must have the same size
+    void copyTo(Board board)
+    {
+        for (int i = 0; i < cells.length; i++)
+        {
+            int row = i / units.size;
+            int col = i % units.size;
+            if (board.getCell(row, col) != cells[i])
+            {
+                board.rawSetCell(row, col, cells[i]);
+            }
+        }
+    }
+
+    public int getBoxSize()
+    {
+        return units.boxSize;
+    }
+
+    public int getSize()
+    {
+        return units.size;
+    }
+
+    public int getCell(int row, int col)
+    {
+        return cells[row * units.size + col];
+    }
+
+    // cell i is (i / size, i % size)
+    int getCell(int cell)
+    {
+        return cells[cell];
+    }
+
+    public BoardState withCell(int row, int col, int value)
+    {
+        if (value < 0 || value > units.size)
+        {
+            throw new IllegalArgumentException("Value must be between 1 and " + units.size + " (or 0 to reset a value)");
+        }
+        return withCell(row * units.size + col, value);
+    }
+
+    BoardState withCell(int cell, int value)
+    {
+        int oldValue = cells[cell];
+        if (oldValue == value)
+        {
+            return this;
+        }
+        byte[] copy = cells.clone();
+        copy[cell] = (byte) value;
+        long[] keys = ZOBRIST[units.boxSize][cell];
+        return new BoardState(units, copy, hash ^ keys[oldValue] ^ keys[value]);
+    }
+
+    // the values no other cell in the row, column or box of cell holds
+    int getCandidateMask(int cell)
+    {
+        int used = 0;
+        for (int peer : units.peers[cell])
+        {
+            int value = cells[peer];
+            if (value != 0)
+            {
+                used |= Candidates.bit(value);
+            }
+        }
+        return units.all & ~used;
+    }
+
+    public int getCandidateMask(int row, int col)
+    {
+        return getCandidateMask(row * units.size + col);
+    }
+
+    // false if two givens clash in a row, column or box, so there can be no solution
+    boolean isConsistent()
+    {
+        for (int i = 0; i < cells.length; i++)
+        {
+            if (cells[i] != 0 && (getCandidateMask(i) & Candidates.bit(cells[i])) == 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the first empty cell in row order, or -1 if the board is full
+    int findEmptyCell()
+    {
+        for (int i = 0; i < cells.length; i++)
+        {
+            if (cells[i] == 0)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public long getHash()
+    {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof BoardState))
+        {
+            return false;
+        }
+        BoardState other = (BoardState) o;
+        // different hashes settle almost every comparison without looking at the cells
+        return hash == other.hash && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    // the same line Board.toLine() writes
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder(cells.length);
+        for (byte value : cells)
+        {
+            sb.append(value == 0 ? '.' : Board.symbolOf(value));
+        }
+        return sb.toString();
+    }
+}
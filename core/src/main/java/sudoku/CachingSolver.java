@@ -0,0 +1,89 @@
+package sudoku;
+
+/**
+ * Puts a SolutionCache in front of another solver. Each puzzle is brought into its
+ * CanonicalForm first, so a puzzle that was solved before under different labels,
+ * row and column order or transposition is answered from the cache and only mapped
+ * back. Canonicalizing costs well under a millisecond on 9x9, which is less than a
+ * hard search but more than an easy one, so this pays off on corpora with repeats
+ * rather than on every call.
+ */
+public class CachingSolver implements Solver
+{
+    private final Solver delegate;
+    private final SolutionCache cache;
+
+    public CachingSolver(Solver delegate, int capacity)
+    {
+        this(delegate, new SolutionCache(capacity));
+    }
+
+    // several solvers can share one cache
+    public CachingSolver(Solver delegate, SolutionCache cache)
+    {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    public Solver getDelegate()
+    {
+        return delegate;
+    }
+
+    public SolutionCache getCache()
+    {
+        return cache;
+    }
+
+    @Override
+    public Board solve(Board board)
+    {
+        return solve(board, null);
+    }
+
+    // a cache hit adds nothing to stats, a miss adds the delegate's search
+    @Override
+    public Board solve(Board board, SolverStats stats)
+    {
+        CanonicalForm form = CanonicalForm.of(board);
+        BoardState key = form.getKey();
+        BoardState solution = cache.getSolution(key);
+        if (solution == null && !cache.isSolved(key))
+        {
+            Board solved = delegate.solve(form.getBoard(), stats);
+            solution = solved == null ? null : BoardState.of(solved);
+            cache.putSolution(key, solution);
+            if (solution == null)
+            {
+                cache.putCount(key, 0, Integer.MAX_VALUE);
+            }
+        }
+        if (solution == null)
+        {
+            return null;
+        }
+        Board result = form.toOriginal(solution.toBoard());
+        result.setSolver(board.getSolver());
+        return result;
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit)
+    {
+        return countSolutions(board, limit, null);
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit, SolverStats stats)
+    {
+        BoardState key = CanonicalForm.of(board).getKey();
+        int count = cache.getCount(key, limit);
+        if (count < 0)
+        {
+            // relabeling and reordering don't change the count, so the original board will do
+            count = delegate.countSolutions(board, limit, stats);
+            cache.putCount(key, count, limit);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,102 @@
+package sudoku;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Helpers for candidate bitmasks. Value v is stored in bit (v - 1), so a mask
+ * of 0b000010011 means the values 1, 2 and 5.
+ */
+public final class Candidates
+{
+    // every value of a 9x9 board
+    public static final int ALL = 0x1FF;
+
+    private Candidates()
+    {
+    }
+
+    // every value of a board with size values, which fits an int up to 25x25 boards
+    public static int all(int size)
+    {
+        return (1 << size) - 1;
+    }
+
+    public static int bit(int value)
+    {
+        return 1 << (value - 1);
+    }
+
+    public static boolean contains(int mask, int value)
+    {
+        return value > 0 && (mask & bit(value)) != 0;
+    }
+
+    public static int count(int mask)
+    {
+        return Integer.bitCount(mask);
+    }
+
+    // the smallest value in the mask, or 0 if the mask is empty
+    public static int first(int mask)
+    {
+        return mask == 0 ? 0 : Integer.numberOfTrailingZeros(mask) + 1;
+    }
+
+    public static Set<Integer> asSet(int mask)
+    {
+        return new MaskSet(mask);
+    }
+
+    // read-only Set view over a mask, so callers of getPossibleValues don't pay for a HashSet
+    private static class MaskSet extends AbstractSet<Integer>
+    {
+        private final int mask;
+
+        MaskSet(int mask)
+        {
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return o instanceof Integer && Candidates.contains(mask, (Integer) o);
+        }
+
+        @Override
+        public int size()
+        {
+            return Integer.bitCount(mask);
+        }
+
+        @Override
+        public Iterator<Integer> iterator()
+        {
+            return new Iterator<Integer>()
+            {
+                private int remaining = mask;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return remaining != 0;
+                }
+
+                @Override
+                public Integer next()
+                {
+                    if (remaining == 0)
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    int value = first(remaining);
+                    remaining &= remaining - 1;
+                    return value;
+                }
+            };
+        }
+    }
+}
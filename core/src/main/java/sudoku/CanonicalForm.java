@@ -0,0 +1,440 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The smallest representative of a board's equivalence class, and the transform that
+ * leads to it. Two puzzles are equivalent if one turns into the other by relabeling
+ * the values, reordering bands or stacks, reordering rows within a band or columns
+ * within a stack, or transposing. They have the same number of solutions, and the
+ * solutions map onto each other the same way, so anything computed for the canonical
+ * board can be mapped back to the original with toOriginal().
+ *
+ * The representative is the one whose toLine() is smallest, with empty cells before
+ * every value. It is found by trying every column arrangement and transposition, and
+ * building the rows one at a time, only following the rows that tie for smallest so
+ * far. Boards bigger than 9x9 have too many arrangements for that, so they are only
+ * matched when they are identical.
+ */
+public final class CanonicalForm
+{
+    private static final int MAX_SEARCHED_BOX_SIZE = 3;
+
+    private final Board board;
+    private final BoardState key;
+    // canonical cell k holds the value of original cell cellMap[k], relabeled by labels
+    private final int[] cellMap;
+    // labels[v] is the canonical label of original value v, values[l] the reverse
+    private final int[] labels;
+    private final int[] values;
+
+    private CanonicalForm(Board original, int[] cellMap, int[] labels)
+    {
+        this.cellMap = cellMap;
+        this.labels = labels;
+        values = new int[labels.length];
+        for (int v = 0; v < labels.length; v++)
+        {
+            values[labels[v]] = v;
+        }
+        board = toCanonical(original);
+        key = BoardState.of(board);
+    }
+
+    public static CanonicalForm of(Board board)
+    {
+        int size = board.getSize();
+        int[] cells = new int[size * size];
+        for (int i = 0; i < cells.length; i++)
+        {
+            cells[i] = board.getCell(i / size, i % size);
+        }
+        if (board.getBoxSize() > MAX_SEARCHED_BOX_SIZE)
+        {
+            int[] identity = new int[cells.length];
+            for (int i = 0; i < identity.length; i++)
+            {
+                identity[i] = i;
+            }
+            int[] labels = new int[size + 1];
+            for (int v = 0; v <= size; v++)
+            {
+                labels[v] = v;
+            }
+            return new CanonicalForm(board, identity, labels);
+        }
+        Search search = new Search(board.getBoxSize(), cells);
+        search.run();
+        return new CanonicalForm(board, search.bestCellMap, search.bestLabels);
+    }
+
+    // the canonical board, which has no solver settings of its own worth keeping
+    public Board getBoard()
+    {
+        return new Board(board);
+    }
+
+    // the canonical board's cells, the same for every board in the class
+    public BoardState getKey()
+    {
+        return key;
+    }
+
+    // maps a board from the original's layout (such as a solution of it) to the canonical layout
+    public Board toCanonical(Board original)
+    {
+        Board result = new Board(original);
+        int size = original.getSize();
+        for (int k = 0; k < cellMap.length; k++)
+        {
+            int i = cellMap[k];
+            result.rawSetCell(k / size, k % size, labels[original.getCell(i / size, i % size)]);
+        }
+        return result;
+    }
+
+    // maps a board in the canonical layout (such as a solution of getBoard()) back to the original's
+    public Board toOriginal(Board canonical)
+    {
+        Board result = new Board(canonical);
+        int size = canonical.getSize();
+        for (int k = 0; k < cellMap.length; k++)
+        {
+            int i = cellMap[k];
+            result.rawSetCell(i / size, i % size, values[canonical.getCell(k / size, k % size)]);
+        }
+        return result;
+    }
+
+    private static class Search
+    {
+        private final int boxSize;
+        private final int size;
+        private final int[] cells;
+        // every ordering of the numbers 0 to boxSize - 1
+        private final List<int[]> orders = new ArrayList<>();
+
+        // the transform being built: the source grid (transposed or not) and its column order
+        private int[] source;
+        private boolean transposed;
+        private final int[] columns;
+        // the rows that may go on top with the current columns
+        private int firstRows;
+        private final int[] rows;
+        private final int[] labels;
+        private int nextLabel;
+        private final int[] current;
+        // scratch space for each row of the search, so nothing is allocated while searching
+        private final int[][] candidates;
+        private final int[][] smallestRows;
+        private final int[][] tieRows;
+        private final int[][] savedLabelSets;
+
+        private int[] best;
+        private int[] bestCellMap;
+        private int[] bestLabels;
+
+        Search(int boxSize, int[] cells)
+        {
+            this.boxSize = boxSize;
+            size = boxSize * boxSize;
+            this.cells = cells;
+            columns = new int[size];
+            rows = new int[size];
+            labels = new int[size + 1];
+            current = new int[size * size];
+            candidates = new int[size][size];
+            smallestRows = new int[size][size];
+            tieRows = new int[size][size];
+            savedLabelSets = new int[size][size + 1];
+            permutations(new int[boxSize], 0, 0);
+        }
+
+        private void permutations(int[] order, int depth, int used)
+        {
+            if (depth == boxSize)
+            {
+                orders.add(order.clone());
+                return;
+            }
+            for (int i = 0; i < boxSize; i++)
+            {
+                if ((used & 1 << i) == 0)
+                {
+                    order[depth] = i;
+                    permutations(order, depth + 1, used | 1 << i);
+                }
+            }
+        }
+
+        void run()
+        {
+            int[] transpose = new int[cells.length];
+            for (int i = 0; i < cells.length; i++)
+            {
+                transpose[i] = cells[i % size * size + i / size];
+            }
+            for (int t = 0; t < 2; t++)
+            {
+                source = t == 0 ? cells : transpose;
+                transposed = t == 1;
+                chooseColumns(0, 0, (1 << size) - 1);
+            }
+        }
+
+        /**
+         * Picks the stacks left to right, and the column order within each as it goes.
+         * Only the rows in firstRows can still go on top: the ones whose start, over the
+         * columns picked so far, is the smallest. If even that is bigger than the start of
+         * best, no arrangement from here on can win.
+         */
+        private void chooseColumns(int position, int usedStacks, int firstRows)
+        {
+            if (position == boxSize)
+            {
+                for (int v = 0; v <= size; v++)
+                {
+                    labels[v] = 0;
+                }
+                nextLabel = 1;
+                this.firstRows = firstRows;
+                chooseRow(0, 0, best == null);
+                return;
+            }
+            int width = (position + 1) * boxSize;
+            int[] start = candidates[position];
+            int[] smallest = smallestRows[position];
+            for (int stack = 0; stack < boxSize; stack++)
+            {
+                if ((usedStacks & 1 << stack) != 0)
+                {
+                    continue;
+                }
+                for (int[] order : orders)
+                {
+                    for (int k = 0; k < boxSize; k++)
+                    {
+                        columns[position * boxSize + k] = stack * boxSize + order[k];
+                    }
+                    boolean bounded = best != null;
+                    if (bounded)
+                    {
+                        System.arraycopy(best, 0, smallest, 0, width);
+                    }
+                    int rowsLeft = 0;
+                    for (int r = 0; r < size; r++)
+                    {
+                        if ((firstRows & 1 << r) == 0)
+                        {
+                            continue;
+                        }
+                        int cmp = startOf(r, width, start, bounded ? smallest : null);
+                        if (cmp < 0)
+                        {
+                            System.arraycopy(start, 0, smallest, 0, width);
+                            bounded = true;
+                            rowsLeft = 0;
+                        }
+                        if (cmp <= 0)
+                        {
+                            rowsLeft |= 1 << r;
+                        }
+                    }
+                    if (rowsLeft != 0)
+                    {
+                        chooseColumns(position + 1, usedStacks | 1 << stack, rowsLeft);
+                    }
+                }
+            }
+        }
+
+        // the first width cells of row r, labeled as if it were the top row, compared with bound
+        private int startOf(int r, int width, int[] out, int[] bound)
+        {
+            for (int v = 0; v <= size; v++)
+            {
+                labels[v] = 0;
+            }
+            nextLabel = 1;
+            int order = bound == null ? -1 : 0;
+            for (int j = 0; j < width; j++)
+            {
+                int value = source[r * size + columns[j]];
+                if (value != 0 && labels[value] == 0)
+                {
+                    labels[value] = nextLabel++;
+                }
+                out[j] = labels[value];
+                if (order == 0 && out[j] != bound[j])
+                {
+                    if (out[j] > bound[j])
+                    {
+                        return 1;
+                    }
+                    order = -1;
+                }
+            }
+            return order;
+        }
+
+        /**
+         * Fills canonical row depth. Only rows that keep the bands together may go there,
+         * and of those only the ones that come out smallest with the labels so far are
+         * followed. less says whether the rows above are already smaller than best;
+         * if not, a row also has to be no bigger than best's to be worth following.
+         */
+        private void chooseRow(int depth, int usedRows, boolean less)
+        {
+            if (depth == size)
+            {
+                record();
+                return;
+            }
+            int band = depth % boxSize == 0 ? -1 : rows[depth - 1] / boxSize;
+            int bandMask = (1 << boxSize) - 1;
+            int[] candidate = candidates[depth];
+            int[] smallest = smallestRows[depth];
+            int[] ties = tieRows[depth];
+            int tieCount = 0;
+            int[] savedLabels = savedLabelSets[depth];
+            System.arraycopy(labels, 0, savedLabels, 0, labels.length);
+            int savedNext = nextLabel;
+            boolean bounded = !less;
+            if (bounded)
+            {
+                System.arraycopy(best, depth * size, smallest, 0, size);
+            }
+            for (int r = 0; r < size; r++)
+            {
+                // within a band only its own rows are left, and a new band can't be one already started
+                boolean allowed = band >= 0 ? r / boxSize == band : (usedRows >> (r / boxSize * boxSize) & bandMask) == 0;
+                if (depth == 0)
+                {
+                    allowed = (firstRows & 1 << r) != 0;
+                }
+                if ((usedRows & 1 << r) != 0 || !allowed)
+                {
+                    continue;
+                }
+                int order = relabelRow(r, candidate, bounded ? smallest : null);
+                System.arraycopy(savedLabels, 0, labels, 0, labels.length);
+                nextLabel = savedNext;
+                if (order < 0)
+                {
+                    System.arraycopy(candidate, 0, smallest, 0, size);
+                    bounded = true;
+                    tieCount = 0;
+                }
+                if (order <= 0)
+                {
+                    ties[tieCount++] = r;
+                }
+            }
+            if (!less && tieCount > 0)
+            {
+                less = compare(smallest, depth) < 0;
+            }
+            for (int t = 0; t < tieCount; t++)
+            {
+                int r = ties[t];
+                rows[depth] = r;
+                relabelRow(r, candidate, null);
+                System.arraycopy(candidate, 0, current, depth * size, size);
+                chooseRow(depth + 1, usedRows | 1 << r, less);
+                System.arraycopy(savedLabels, 0, labels, 0, labels.length);
+                nextLabel = savedNext;
+                // a branch that was already smaller has become best, so the other ties only have to match it
+                less = false;
+            }
+        }
+
+        /**
+         * Writes source row r in the current column order, labeling new values as they
+         * appear. With a bound, gives up as soon as the row turns out bigger and returns
+         * 1; otherwise returns how the row compares with the bound.
+         */
+        private int relabelRow(int r, int[] out, int[] bound)
+        {
+            int order = bound == null ? -1 : 0;
+            for (int j = 0; j < size; j++)
+            {
+                int value = source[r * size + columns[j]];
+                if (value != 0 && labels[value] == 0)
+                {
+                    labels[value] = nextLabel++;
+                }
+                out[j] = labels[value];
+                if (order == 0 && out[j] != bound[j])
+                {
+                    if (out[j] > bound[j])
+                    {
+                        return 1;
+                    }
+                    order = -1;
+                }
+            }
+            return order;
+        }
+
+        private static int compare(int[] a, int[] b)
+        {
+            for (int j = 0; j < a.length; j++)
+            {
+                if (a[j] != b[j])
+                {
+                    return a[j] < b[j] ? -1 : 1;
+                }
+            }
+            return 0;
+        }
+
+        // compares a candidate row with row depth of best
+        private int compare(int[] row, int depth)
+        {
+            if (best == null)
+            {
+                return -1;
+            }
+            for (int j = 0; j < size; j++)
+            {
+                int other = best[depth * size + j];
+                if (row[j] != other)
+                {
+                    return row[j] < other ? -1 : 1;
+                }
+            }
+            return 0;
+        }
+
+        private void record()
+        {
+            if (best != null && compare(current, best) >= 0)
+            {
+                return;
+            }
+            best = current.clone();
+            bestCellMap = new int[size * size];
+            for (int i = 0; i < size; i++)
+            {
+                for (int j = 0; j < size; j++)
+                {
+                    int r = rows[i];
+                    int c = columns[j];
+                    // undo the transposition to get back to the original cell
+                    bestCellMap[i * size + j] = transposed ? c * size + r : r * size + c;
+                }
+            }
+            bestLabels = labels.clone();
+            // values the board doesn't use still need a label, so solutions can be mapped too
+            int next = nextLabel;
+            for (int v = 1; v <= size; v++)
+            {
+                if (bestLabels[v] == 0)
+                {
+                    bestLabels[v] = next++;
+                }
+            }
+        }
+    }
+}
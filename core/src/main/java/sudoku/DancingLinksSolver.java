@@ -0,0 +1,317 @@
+package sudoku;
+
+import java.util.Random;
+
+/**
+ * Knuth's Algorithm X on a dancing-links exact-cover matrix.
+ *
+ * On a 9x9 board there are 324 constraint columns (every cell filled once, and every
+ * value once per row, column and box) and 729 candidate rows (one per cell and value);
+ * in general 4 * size^2 columns and size^3 rows. The givens are selected up front, then
+ * the search always branches on the column with the fewest remaining rows, so nothing
+ * is copied while searching.
+ */
+public class DancingLinksSolver implements Solver
+{
+    private final Random random;
+
+    public DancingLinksSolver()
+    {
+        this(new Random());
+    }
+
+    // pass null to always try candidates in the same order
+    public DancingLinksSolver(Random random)
+    {
+        this.random = random;
+    }
+
+    @Override
+    public Board solve(Board board)
+    {
+        return solve(board, null);
+    }
+
+    @Override
+    public Board solve(Board board, SolverStats stats)
+    {
+        Matrix matrix = new Matrix(board, random);
+        boolean solved = matrix.consistent && matrix.search(1) > 0;
+        matrix.report(stats);
+        if (!solved)
+        {
+            return null;
+        }
+        Board solution = new Board(board);
+        int size = board.getSize();
+        for (int i = 0; i < matrix.solutionDepth; i++)
+        {
+            int row = matrix.solution[i];
+            solution.rawSetCell(row / (size * size), row / size % size, row % size + 1);
+        }
+        return solution;
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit)
+    {
+        return countSolutions(board, limit, null);
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit, SolverStats stats)
+    {
+        Matrix matrix = new Matrix(board, null);
+        int count = matrix.consistent ? matrix.search(limit) : 0;
+        matrix.report(stats);
+        return count;
+    }
+
+    /**
+     * The linked matrix, stored in parallel int arrays. Node 0 is the root, nodes
+     * 1..columns are the column headers and every candidate row owns the four nodes after that.
+     */
+    private static class Matrix
+    {
+        // where each group of constraint columns starts, before the +1 for the root
+        private final int cellColumns;
+        private final int rowColumns;
+        private final int colColumns;
+        private final int boxColumns;
+        private final int columns;
+        private final int rows;
+
+        private final int[] left;
+        private final int[] right;
+        private final int[] up;
+        private final int[] down;
+        private final int[] column;
+        private final int[] rowOf;
+        private final int[] size;
+        private final boolean[] covered;
+        private final Random random;
+
+        // candidate rows picked by the search, in order, plus a copy of the first complete pick
+        private final int[] path;
+        private int depth;
+        private final int[] solution;
+        private int solutionDepth = -1;
+
+        private boolean consistent = true;
+
+        // search counters, handed to SolverStats at the end; column covers count as propagation
+        private long nodes;
+        private long backtracks;
+        private int maxDepth;
+        private long covers;
+
+        Matrix(Board board, Random random)
+        {
+            this.random = random;
+            int n = board.getSize();
+            int boxSize = board.getBoxSize();
+            cellColumns = 0;
+            rowColumns = n * n;
+            colColumns = 2 * n * n;
+            boxColumns = 3 * n * n;
+            columns = 4 * n * n;
+            rows = n * n * n;
+            path = new int[n * n];
+            solution = new int[n * n];
+            int nodes = 1 + columns + rows * 4;
+            left = new int[nodes];
+            right = new int[nodes];
+            up = new int[nodes];
+            down = new int[nodes];
+            column = new int[nodes];
+            rowOf = new int[nodes];
+            size = new int[columns + 1];
+            covered = new boolean[columns + 1];
+
+            for (int c = 0; c <= columns; c++)
+            {
+                left[c] = c == 0 ? columns : c - 1;
+                right[c] = c == columns ? 0 : c + 1;
+                up[c] = c;
+                down[c] = c;
+                column[c] = c;
+            }
+
+            int[] firstNode = new int[rows];
+            int node = columns + 1;
+            for (int row = 0; row < rows; row++)
+            {
+                int r = row / (n * n);
+                int c = row / n % n;
+                int v = row % n;
+                int b = r / boxSize * boxSize + c / boxSize;
+                firstNode[row] = node;
+                addNode(node++, row, 1 + cellColumns + r * n + c);
+                addNode(node++, row, 1 + rowColumns + r * n + v);
+                addNode(node++, row, 1 + colColumns + c * n + v);
+                addNode(node++, row, 1 + boxColumns + b * n + v);
+                for (int k = firstNode[row]; k < node; k++)
+                {
+                    left[k] = k == firstNode[row] ? node - 1 : k - 1;
+                    right[k] = k == node - 1 ? firstNode[row] : k + 1;
+                }
+            }
+
+            // the givens are part of every solution, so select their rows before searching
+            for (int r = 0; r < n && consistent; r++)
+            {
+                for (int c = 0; c < n && consistent; c++)
+                {
+                    int value = board.getCell(r, c);
+                    if (value != 0)
+                    {
+                        consistent = select(firstNode[(r * n + c) * n + value - 1]);
+                    }
+                }
+            }
+        }
+
+        void report(SolverStats stats)
+        {
+            if (stats != null)
+            {
+                stats.add(nodes, backtracks, maxDepth, covers);
+            }
+        }
+
+        private void addNode(int node, int row, int col)
+        {
+            column[node] = col;
+            rowOf[node] = row;
+            up[node] = up[col];
+            down[node] = col;
+            down[up[col]] = node;
+            up[col] = node;
+            size[col]++;
+        }
+
+        // returns false if a given clashes with one that was selected before it
+        private boolean select(int node)
+        {
+            int n = node;
+            do
+            {
+                if (covered[column[n]])
+                {
+                    return false;
+                }
+                n = right[n];
+            } while (n != node);
+            n = node;
+            do
+            {
+                cover(column[n]);
+                n = right[n];
+            } while (n != node);
+            return true;
+        }
+
+        private void cover(int col)
+        {
+            covers++;
+            covered[col] = true;
+            right[left[col]] = right[col];
+            left[right[col]] = left[col];
+            for (int i = down[col]; i != col; i = down[i])
+            {
+                for (int j = right[i]; j != i; j = right[j])
+                {
+                    down[up[j]] = down[j];
+                    up[down[j]] = up[j];
+                    size[column[j]]--;
+                }
+            }
+        }
+
+        private void uncover(int col)
+        {
+            for (int i = up[col]; i != col; i = up[i])
+            {
+                for (int j = left[i]; j != i; j = left[j])
+                {
+                    size[column[j]]++;
+                    down[up[j]] = j;
+                    up[down[j]] = j;
+                }
+            }
+            right[left[col]] = col;
+            left[right[col]] = col;
+            covered[col] = false;
+        }
+
+        // counts solutions below the current node, stopping once limit of them have been found
+        int search(int limit)
+        {
+            Solver.checkCancelled();
+            nodes++;
+            maxDepth = Math.max(maxDepth, depth);
+            if (right[0] == 0)
+            {
+                if (solutionDepth < 0)
+                {
+                    System.arraycopy(path, 0, solution, 0, depth);
+                    solutionDepth = depth;
+                }
+                return 1;
+            }
+
+            // branch on the column with the fewest rows left
+            int col = right[0];
+            for (int c = right[col]; c != 0; c = right[c])
+            {
+                if (size[c] < size[col])
+                {
+                    col = c;
+                }
+            }
+            if (size[col] == 0)
+            {
+                backtracks++;
+                return 0;
+            }
+
+            // a column never has more rows than the board has values, so the order can be shuffled in a small buffer
+            int[] rows = new int[size[col]];
+            int n = 0;
+            for (int i = down[col]; i != col; i = down[i])
+            {
+                rows[n++] = i;
+            }
+            if (random != null)
+            {
+                for (int i = n - 1; i > 0; i--)
+                {
+                    int j = random.nextInt(i + 1);
+                    int tmp = rows[i];
+                    rows[i] = rows[j];
+                    rows[j] = tmp;
+                }
+            }
+
+            int count = 0;
+            cover(col);
+            for (int k = 0; k < n && count < limit; k++)
+            {
+                int i = rows[k];
+                path[depth++] = rowOf[i];
+                for (int j = right[i]; j != i; j = right[j])
+                {
+                    cover(column[j]);
+                }
+                count += search(limit - count);
+                for (int j = left[i]; j != i; j = left[j])
+                {
+                    uncover(column[j]);
+                }
+                depth--;
+            }
+            uncover(col);
+            return count;
+        }
+    }
+}
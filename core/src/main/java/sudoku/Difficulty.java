@@ -0,0 +1,19 @@
+package sudoku;
+
+/**
+ * How hard a puzzle is for a person, graded by the hardest technique StepSolver needs
+ * to finish it. EXTREME puzzles can't be finished with those techniques at all.
+ */
+public enum Difficulty
+{
+    EASY,
+    MEDIUM,
+    HARD,
+    EXPERT,
+    EXTREME;
+
+    public String getName()
+    {
+        return name().toLowerCase();
+    }
+}
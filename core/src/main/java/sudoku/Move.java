@@ -0,0 +1,90 @@
+package sudoku;
+
+import java.io.IOException;
+
+public class Move {
+    private int row;
+    private int col;
+    private int previousValue;
+    private int newValue;
+
+    public Move(int row, int col, int previousValue, int newValue) {
+        this.row = row;
+        this.col = col;
+        this.previousValue = previousValue;
+        this.newValue = newValue;
+    }
+
+    // the move as a single int, one byte each for row, column, previous and new value
+    public int pack() {
+        return pack(row, col, previousValue, newValue);
+    }
+
+    public static int pack(int row, int col, int previousValue, int newValue) {
+        return row << 24 | col << 16 | previousValue << 8 | newValue;
+    }
+
+    public static Move unpack(int move) {
+        return new Move(row(move), col(move), previousValue(move), newValue(move));
+    }
+
+    public static int row(int move) {
+        return move >>> 24;
+    }
+
+    public static int col(int move) {
+        return (move >>> 16) & 0xFF;
+    }
+
+    public static int previousValue(int move) {
+        return (move >>> 8) & 0xFF;
+    }
+
+    public static int newValue(int move) {
+        return move & 0xFF;
+    }
+
+    public void undo(Board board) {
+        if (Trace.ENABLED) {
+            Trace.log("Undoing move: " + row + ", " + col + " = " + previousValue);
+        }
+        board.rawSetCell(row, col, previousValue);
+        if (Trace.ENABLED) {
+            Trace.log(board.toString());
+        }
+    }
+
+    public void redo(Board board) {
+        if (Trace.ENABLED) {
+            Trace.log("Redoing move: " + row + ", " + col + " = " + newValue);
+        }
+        board.rawSetCell(row, col, newValue);
+        if (Trace.ENABLED) {
+            Trace.log(board.toString());
+        }
+    }
+
+    // writes a packed move the way toString() describes it, without building a String
+    static void appendTo(Appendable out, int move) throws IOException {
+        out.append("Changed ");
+        appendNumber(out, row(move));
+        out.append(", ");
+        appendNumber(out, col(move));
+        out.append(", from ");
+        appendNumber(out, previousValue(move));
+        out.append(" to ");
+        appendNumber(out, newValue(move));
+    }
+
+    // every packed field fits in a byte, so at most three digits
+    private static void appendNumber(Appendable out, int n) throws IOException {
+        if (n >= 100) out.append((char) ('0' + n / 100));
+        if (n >= 10) out.append((char) ('0' + n / 10 % 10));
+        out.append((char) ('0' + n % 10));
+    }
+
+    @Override
+    public String toString() {
+        return "Changed " + row + ", " + col + ", from " + previousValue + " to " + newValue;
+    }
+}
@@ -0,0 +1,171 @@
+package sudoku;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The move history of a board, kept as packed ints (see Move.pack) rather than one
+ * object per move. It records two things: the undo/redo history, and the archive of
+ * every move ever made, which undo does not shrink.
+ *
+ * With a capacity of 0 both grow without limit. Otherwise each is a ring buffer that
+ * drops its oldest move once it is full, so long automated replays use fixed memory.
+ */
+public class MoveJournal
+{
+    private final int capacity;
+    private final IntRing history;
+    private final IntRing archive;
+    // history[0, applied) can be undone, history[applied, size) can be redone
+    private int applied;
+
+    public MoveJournal()
+    {
+        this(0);
+    }
+
+    public MoveJournal(int capacity)
+    {
+        if (capacity < 0)
+        {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        this.capacity = capacity;
+        history = new IntRing(capacity);
+        archive = new IntRing(capacity);
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    // records a new move, which throws away anything that could have been redone
+    public void record(int move)
+    {
+        history.truncate(applied);
+        history.add(move);
+        applied = history.size();
+        archive.add(move);
+    }
+
+    public boolean canUndo()
+    {
+        return applied > 0;
+    }
+
+    public boolean canRedo()
+    {
+        return applied < history.size();
+    }
+
+    // steps back over the last applied move and returns it
+    public int undo()
+    {
+        if (!canUndo())
+        {
+            throw new IllegalStateException("No moves to undo");
+        }
+        return history.get(--applied);
+    }
+
+    // steps forward over the next undone move and returns it
+    public int redo()
+    {
+        if (!canRedo())
+        {
+            throw new IllegalStateException("No moves to redo");
+        }
+        return history.get(applied++);
+    }
+
+    // the number of moves in the archive
+    public int size()
+    {
+        return archive.size();
+    }
+
+    // the i-th archived move, oldest first
+    public int get(int i)
+    {
+        return archive.get(i);
+    }
+
+    public void clear()
+    {
+        history.truncate(0);
+        archive.truncate(0);
+        applied = 0;
+    }
+
+    // writes the archive one move per line, so a StringBuilder or a Writer can take it straight away
+    public void export(Appendable out) throws IOException
+    {
+        for (int i = 0; i < archive.size(); i++)
+        {
+            Move.appendTo(out, archive.get(i));
+            out.append('\n');
+        }
+    }
+
+    // a growable int list, or a ring buffer of fixed size when it has a capacity
+    private static final class IntRing
+    {
+        private final int capacity;
+        private int[] values;
+        private int start;
+        private int size;
+
+        IntRing(int capacity)
+        {
+            this.capacity = capacity;
+            values = new int[capacity > 0 ? capacity : 16];
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        int get(int i)
+        {
+            if (i < 0 || i >= size)
+            {
+                throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + size);
+            }
+            return values[(start + i) % values.length];
+        }
+
+        void add(int value)
+        {
+            if (size == values.length)
+            {
+                if (capacity > 0)
+                {
+                    // full: overwrite the oldest
+                    values[start] = value;
+                    start = (start + 1) % values.length;
+                    return;
+                }
+                grow();
+            }
+            values[(start + size) % values.length] = value;
+            size++;
+        }
+
+        void truncate(int newSize)
+        {
+            size = Math.min(size, newSize);
+            if (size == 0)
+            {
+                start = 0;
+            }
+        }
+
+        private void grow()
+        {
+            // only unbounded rings grow, and those never wrap, so start is always 0 here
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+    }
+}
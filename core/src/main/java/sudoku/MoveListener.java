@@ -0,0 +1,14 @@
+package sudoku;
+
+/**
+ * Notified by a Board whenever its move history changes. Moves are passed packed
+ * (see Move.pack); an undone or redone move is the one originally made.
+ */
+public interface MoveListener
+{
+    void moveMade(int move);
+
+    void moveUndone(int move);
+
+    void moveRedone(int move);
+}
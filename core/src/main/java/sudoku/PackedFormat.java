@@ -0,0 +1,115 @@
+package sudoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of the packed binary puzzle files read by PackedPuzzleReader and written by
+ * PackedPuzzleWriter.
+ *
+ * The file starts with a 16 byte header: the magic "SDKP", a version short, a flags
+ * short and 8 reserved bytes. After that come fixed-size records, so record i starts
+ * at HEADER_SIZE + i * recordSize. A record is the puzzle as 81 cells of 4 bits (41
+ * bytes, cell 2k in the low nibble of byte k), followed by the solution in the same
+ * form if FLAG_SOLUTION is set, followed by a clue count byte and a difficulty byte if
+ * FLAG_METADATA is set. Only 9x9 boards fit in 4 bits a cell.
+ */
+final class PackedFormat
+{
+    static final int MAGIC = 0x53444B50; // "SDKP"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int GRID_SIZE = 41;
+
+    static final short FLAG_SOLUTION = 1;
+    static final short FLAG_METADATA = 2;
+
+    private PackedFormat()
+    {
+    }
+
+    static int recordSize(int flags)
+    {
+        int size = GRID_SIZE;
+        if ((flags & FLAG_SOLUTION) != 0)
+        {
+            size += GRID_SIZE;
+        }
+        if ((flags & FLAG_METADATA) != 0)
+        {
+            size += 2;
+        }
+        return size;
+    }
+
+    static void writeHeader(ByteBuffer buffer, int flags)
+    {
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) flags);
+        buffer.putLong(0);
+    }
+
+    // returns the flags of a header, checking that it is one we can read
+    static int readHeader(ByteBuffer buffer) throws IOException
+    {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+        {
+            throw new IOException("Not a packed puzzle file");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported packed puzzle file version " + version);
+        }
+        int flags = buffer.getShort();
+        buffer.getLong();
+        return flags;
+    }
+
+    static void packGrid(Board board, ByteBuffer buffer)
+    {
+        if (board.getSize() != 9)
+        {
+            throw new IllegalArgumentException("Packed puzzle files only hold 9x9 boards");
+        }
+        for (int i = 0; i < 81; i += 2)
+        {
+            int low = board.getCell(i / 9, i % 9);
+            int high = i + 1 < 81 ? board.getCell((i + 1) / 9, (i + 1) % 9) : 0;
+            buffer.put((byte) (low | high << 4));
+        }
+    }
+
+    // reads a packed grid starting at offset straight into board, without moving the buffer
+    static void unpackGrid(ByteBuffer buffer, int offset, Board board)
+    {
+        for (int i = 0; i < 81; i++)
+        {
+            int packed = buffer.get(offset + (i >> 1));
+            int value = (packed >> ((i & 1) * 4)) & 0xF;
+            // a nibble holds up to 15, anything above 9 means a corrupt or foreign file
+            if (value > 9)
+            {
+                throw new IllegalArgumentException("Corrupt packed puzzle: cell (" + i / 9 + ", " + i % 9 + ") holds " + value);
+            }
+            board.rawSetCell(i / 9, i % 9, value);
+        }
+    }
+
+    static int countClues(Board board)
+    {
+        int clues = 0;
+        for (int r = 0; r < board.getSize(); r++)
+        {
+            for (int c = 0; c < board.getSize(); c++)
+            {
+                if (board.hasValue(r, c))
+                {
+                    clues++;
+                }
+            }
+        }
+        return clues;
+    }
+}
@@ -0,0 +1,175 @@
+package sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Random access to a packed binary puzzle file (see PackedFormat). The file is memory
+ * mapped, in segments of whole records since one mapping can't exceed 2GB, and cells
+ * are decoded straight from the mapping into a Board.
+ */
+public class PackedPuzzleReader implements Closeable, Iterable<Board>
+{
+    private final FileChannel channel;
+    private final int flags;
+    private final int recordSize;
+    private final long count;
+    private final int recordsPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    public PackedPuzzleReader(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            ByteBuffer header = ByteBuffer.allocate(PackedFormat.HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            flags = PackedFormat.readHeader(header);
+            recordSize = PackedFormat.recordSize(flags);
+
+            long dataSize = channel.size() - PackedFormat.HEADER_SIZE;
+            if (dataSize % recordSize != 0)
+            {
+                throw new IOException("Packed puzzle file is truncated");
+            }
+            count = dataSize / recordSize;
+
+            recordsPerSegment = Integer.MAX_VALUE / recordSize;
+            segments = new MappedByteBuffer[(int) ((count + recordsPerSegment - 1) / recordsPerSegment)];
+            for (int s = 0; s < segments.length; s++)
+            {
+                long first = (long) s * recordsPerSegment;
+                long records = Math.min(recordsPerSegment, count - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, PackedFormat.HEADER_SIZE + first * recordSize, records * recordSize);
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size()
+    {
+        return count;
+    }
+
+    public boolean hasSolutions()
+    {
+        return (flags & PackedFormat.FLAG_SOLUTION) != 0;
+    }
+
+    public boolean hasMetadata()
+    {
+        return (flags & PackedFormat.FLAG_METADATA) != 0;
+    }
+
+    public Board getPuzzle(long index)
+    {
+        Board board = new Board();
+        readPuzzle(index, board);
+        return board;
+    }
+
+    public Board getSolution(long index)
+    {
+        Board board = new Board();
+        readSolution(index, board);
+        return board;
+    }
+
+    // overwrites every cell of board with puzzle index
+    public void readPuzzle(long index, Board board)
+    {
+        PackedFormat.unpackGrid(segment(index), offset(index), board);
+    }
+
+    public void readSolution(long index, Board board)
+    {
+        if (!hasSolutions())
+        {
+            throw new IllegalStateException("This file has no solutions");
+        }
+        PackedFormat.unpackGrid(segment(index), offset(index) + PackedFormat.GRID_SIZE, board);
+    }
+
+    public int getClueCount(long index)
+    {
+        return metadata(index, 0);
+    }
+
+    // 0 if the difficulty is unknown
+    public int getDifficulty(long index)
+    {
+        return metadata(index, 1);
+    }
+
+    private int metadata(long index, int field)
+    {
+        if (!hasMetadata())
+        {
+            throw new IllegalStateException("This file has no metadata");
+        }
+        return segment(index).get(offset(index) + recordSize - 2 + field) & 0xFF;
+    }
+
+    private MappedByteBuffer segment(long index)
+    {
+        if (index < 0 || index >= count)
+        {
+            throw new IndexOutOfBoundsException("Puzzle " + index + " of " + count);
+        }
+        return segments[(int) (index / recordsPerSegment)];
+    }
+
+    private int offset(long index)
+    {
+        return (int) (index % recordsPerSegment) * recordSize;
+    }
+
+    /**
+     * Iterates over the puzzles in order. The same Board is refilled on every step to
+     * avoid allocating one per puzzle, so copy it if it has to outlive the step.
+     */
+    @Override
+    public Iterator<Board> iterator()
+    {
+        return new Iterator<Board>()
+        {
+            private final Board board = new Board();
+            private long next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < count;
+            }
+
+            @Override
+            public Board next()
+            {
+                if (next >= count)
+                {
+                    throw new NoSuchElementException();
+                }
+                readPuzzle(next++, board);
+                return board;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
@@ -0,0 +1,99 @@
+package sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes puzzles to a new packed binary file (see PackedFormat). Records are collected
+ * in a buffer and written through the channel in large blocks.
+ */
+public class PackedPuzzleWriter implements Closeable
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int flags;
+    private long count;
+
+    public PackedPuzzleWriter(Path file, boolean withSolutions, boolean withMetadata) throws IOException
+    {
+        int f = 0;
+        if (withSolutions)
+        {
+            f |= PackedFormat.FLAG_SOLUTION;
+        }
+        if (withMetadata)
+        {
+            f |= PackedFormat.FLAG_METADATA;
+        }
+        flags = f;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        PackedFormat.writeHeader(buffer, flags);
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public void write(Board puzzle) throws IOException
+    {
+        write(puzzle, null, 0);
+    }
+
+    /**
+     * Appends a puzzle. The solution is required if the file was opened with solutions,
+     * and difficulty (0 for unknown) is only stored if it was opened with metadata.
+     */
+    public void write(Board puzzle, Board solution, int difficulty) throws IOException
+    {
+        if ((flags & PackedFormat.FLAG_SOLUTION) != 0 && solution == null)
+        {
+            throw new IllegalArgumentException("This file stores solutions, but none was given");
+        }
+        if (buffer.remaining() < PackedFormat.recordSize(flags))
+        {
+            flush();
+        }
+        PackedFormat.packGrid(puzzle, buffer);
+        if ((flags & PackedFormat.FLAG_SOLUTION) != 0)
+        {
+            PackedFormat.packGrid(solution, buffer);
+        }
+        if ((flags & PackedFormat.FLAG_METADATA) != 0)
+        {
+            buffer.put((byte) PackedFormat.countClues(puzzle));
+            buffer.put((byte) difficulty);
+        }
+        count++;
+    }
+
+    public void flush() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts solutions on several cores. The top splitDepth levels of the search are
+ * expanded the same way numSolutionsHelper does it (one BoardState per candidate
+ * of the branching cell), each subtree becomes a RecursiveTask, and the
+ * subtrees below that are counted by a sequential solver.
+ *
+ * Interrupting the thread that called countSolutions cancels the count: the pool's
+ * workers are interrupted in turn, so the sequential searches stop as well.
+ *
+ * Unless a pool is passed in, every ParallelSolver counts on one shared pool, so a
+ * board that switches engines doesn't leave idle worker threads behind. A pool passed
+ * in stays its owner's to shut down.
+ */
+public class ParallelSolver implements Solver
+{
+    // one worker per core; its threads are daemons and exit on their own once idle
+    private static final ForkJoinPool SHARED_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final Solver delegate;
+    private final int splitDepth;
+    private final ForkJoinPool pool;
+
+    public ParallelSolver()
+    {
+        this(new PropagationSolver(null), 2);
+    }
+
+    public ParallelSolver(Solver delegate, int splitDepth)
+    {
+        this(delegate, splitDepth, SHARED_POOL);
+    }
+
+    public ParallelSolver(Solver delegate, int splitDepth, ForkJoinPool pool)
+    {
+        if (splitDepth < 0)
+        {
+            throw new IllegalArgumentException("Split depth must not be negative");
+        }
+        this.delegate = delegate;
+        this.splitDepth = splitDepth;
+        this.pool = pool;
+    }
+
+    public int getSplitDepth()
+    {
+        return splitDepth;
+    }
+
+    public int getThreads()
+    {
+        return pool.getParallelism();
+    }
+
+    // finding one solution doesn't split well, so that is left to the sequential solver
+    @Override
+    public Board solve(Board board)
+    {
+        return delegate.solve(board);
+    }
+
+    @Override
+    public Board solve(Board board, SolverStats stats)
+    {
+        return delegate.solve(board, stats);
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit)
+    {
+        return countSolutions(board, limit, null);
+    }
+
+    // the split levels count as nodes of the search, and each sequential search adds its own
+    @Override
+    public int countSolutions(Board board, int limit, SolverStats stats)
+    {
+        BoardState state = BoardState.of(board);
+        // checked once here rather than by every sequential search below the split
+        if (!state.isConsistent())
+        {
+            return 0;
+        }
+        Count count = new Count(limit, stats);
+        ForkJoinTask<Void> task = pool.submit(new CountTask(state, 0, count));
+        try
+        {
+            task.get();
+        }
+        catch (InterruptedException e)
+        {
+            count.cancel();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Search was cancelled");
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return Math.min(count.found.get(), limit);
+    }
+
+    // state shared by every task of one countSolutions call
+    private static class Count
+    {
+        private final int limit;
+        private final SolverStats stats;
+        // solutions found so far, so the other tasks can stop once limit is reached
+        private final AtomicInteger found = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        // workers currently inside a sequential search, they are interrupted on cancel
+        private final Set<Thread> searching = ConcurrentHashMap.newKeySet();
+
+        Count(int limit, SolverStats stats)
+        {
+            this.limit = limit;
+            this.stats = stats;
+        }
+
+        void cancel()
+        {
+            cancelled = true;
+            for (Thread thread : searching)
+            {
+                thread.interrupt();
+            }
+        }
+    }
+
+    // tasks are never serialized, ForkJoinTask is only Serializable by inheritance
+    @SuppressWarnings("serial")
+    private class CountTask extends RecursiveTask<Void>
+    {
+        private final BoardState state;
+        private final int depth;
+        private final Count count;
+
+        CountTask(BoardState state, int depth, Count count)
+        {
+            this.state = state;
+            this.depth = depth;
+            this.count = count;
+        }
+
+        @Override
+        protected Void compute()
+        {
+            int remaining = count.limit - count.found.get();
+            if (remaining <= 0 || count.cancelled)
+            {
+                return null;
+            }
+
+            int cell = depth < splitDepth ? findBranchCell() : -1;
+            if (cell < 0)
+            {
+                countLeaf(remaining);
+                return null;
+            }
+
+            if (count.stats != null)
+            {
+                count.stats.add(1, 0, depth, 0);
+            }
+            List<CountTask> tasks = new ArrayList<>();
+            for (int mask = state.getCandidateMask(cell); mask != 0; mask &= mask - 1) {
+                tasks.add(new CountTask(state.withCell(cell, Candidates.first(mask)), depth + 1, count));
+            }
+            invokeAll(tasks);
+            return null;
+        }
+
+        private void countLeaf(int remaining)
+        {
+            Thread worker = Thread.currentThread();
+            // drop an interrupt left over from a count that was cancelled earlier
+            Thread.interrupted();
+            count.searching.add(worker);
+            try
+            {
+                // checked after registering, so cancel() either sees this worker or we see the flag
+                if (!count.cancelled)
+                {
+                    count.found.addAndGet(delegate.countSolutions(state.toBoard(), remaining, count.stats));
+                }
+            }
+            catch (CancellationException e)
+            {
+                // the count is abandoned, nothing to add
+            }
+            finally
+            {
+                count.searching.remove(worker);
+                Thread.interrupted();
+            }
+        }
+
+        // the empty cell with the fewest candidates, or -1 if the board is full
+        private int findBranchCell()
+        {
+            int best = -1;
+            int bestCount = Integer.MAX_VALUE;
+            int cells = state.getSize() * state.getSize();
+            for (int i = 0; i < cells; i++)
+            {
+                if (state.getCell(i) == 0)
+                {
+                    int candidates = Candidates.count(state.getCandidateMask(i));
+                    if (candidates < bestCount)
+                    {
+                        best = i;
+                        bestCount = candidates;
+                    }
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package sudoku;
+
+import java.util.Random;
+
+/**
+ * Backtracking with constraint propagation. After every assignment it keeps filling
+ * naked singles (cells with one candidate left) and hidden singles (values with only
+ * one place left in a row, column or box) until nothing changes, then branches on the
+ * empty cell with the fewest candidates. Assignments are recorded on a trail so a
+ * failed branch is undone in place instead of copying the board.
+ */
+public class PropagationSolver implements Solver
+{
+    private final Random random;
+
+    public PropagationSolver()
+    {
+        this(new Random());
+    }
+
+    // pass null to always try candidates in the same order
+    public PropagationSolver(Random random)
+    {
+        this.random = random;
+    }
+
+    @Override
+    public Board solve(Board board)
+    {
+        return solve(board, null);
+    }
+
+    @Override
+    public Board solve(Board board, SolverStats stats)
+    {
+        Search search = new Search(board, random);
+        boolean solved = search.consistent && search.search(1) > 0;
+        search.report(stats);
+        if (!solved)
+        {
+            return null;
+        }
+        Board solution = new Board(board);
+        int size = board.getSize();
+        for (int i = 0; i < search.solution.length; i++)
+        {
+            solution.rawSetCell(i / size, i % size, search.solution[i]);
+        }
+        return solution;
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit)
+    {
+        return countSolutions(board, limit, null);
+    }
+
+    @Override
+    public int countSolutions(Board board, int limit, SolverStats stats)
+    {
+        Search search = new Search(board, null);
+        int count = search.consistent ? search.search(limit) : 0;
+        search.report(stats);
+        return count;
+    }
+
+    private static class Search
+    {
+        private final int[][] units;
+        private final int[][] cellUnits;
+        private final int all;
+        private final int[] cells;
+        // values already placed in each unit, as candidate masks
+        private final int[] used;
+        // cells filled since the search started, so branches can be rolled back
+        private final int[] trail;
+        private int trailSize;
+        private final Random random;
+
+        private int[] solution;
+        private boolean consistent = true;
+
+        // counted as plain fields and only handed to SolverStats at the end, so they cost next to nothing
+        private long nodes;
+        private long backtracks;
+        private int depth;
+        private int maxDepth;
+        private long propagations;
+
+        Search(Board board, Random random)
+        {
+            this.random = random;
+            Units geometry = Units.of(board);
+            units = geometry.units;
+            cellUnits = geometry.cellUnits;
+            all = geometry.all;
+            cells = new int[geometry.cells];
+            used = new int[units.length];
+            trail = new int[geometry.cells];
+            int size = geometry.size;
+            for (int i = 0; i < cells.length && consistent; i++)
+            {
+                int value = board.getCell(i / size, i % size);
+                if (value != 0)
+                {
+                    if (!Candidates.contains(candidates(i), value))
+                    {
+                        consistent = false;
+                    }
+                    else
+                    {
+                        assign(i, value);
+                    }
+                }
+            }
+            // the givens are never undone
+            trailSize = 0;
+        }
+
+        void report(SolverStats stats)
+        {
+            if (stats != null)
+            {
+                stats.add(nodes, backtracks, maxDepth, propagations);
+            }
+        }
+
+        private int candidates(int cell)
+        {
+            int[] unitsOfCell = cellUnits[cell];
+            return all & ~(used[unitsOfCell[0]] | used[unitsOfCell[1]] | used[unitsOfCell[2]]);
+        }
+
+        private void assign(int cell, int value)
+        {
+            int bit = Candidates.bit(value);
+            cells[cell] = value;
+            for (int unit : cellUnits[cell])
+            {
+                used[unit] |= bit;
+            }
+            trail[trailSize++] = cell;
+        }
+
+        private void undoTo(int mark)
+        {
+            while (trailSize > mark)
+            {
+                int cell = trail[--trailSize];
+                int bit = Candidates.bit(cells[cell]);
+                for (int unit : cellUnits[cell])
+                {
+                    used[unit] &= ~bit;
+                }
+                cells[cell] = 0;
+            }
+        }
+
+        // fills singles until there are none left, returns false on a contradiction
+        private boolean propagate()
+        {
+            boolean changed = true;
+            while (changed)
+            {
+                changed = false;
+
+                // naked singles
+                for (int i = 0; i < cells.length; i++)
+                {
+                    if (cells[i] == 0)
+                    {
+                        int mask = candidates(i);
+                        if (mask == 0)
+                        {
+                            return false;
+                        }
+                        if (Candidates.count(mask) == 1)
+                        {
+                            assign(i, Candidates.first(mask));
+                            propagations++;
+                            changed = true;
+                        }
+                    }
+                }
+
+                // hidden singles
+                for (int u = 0; u < units.length; u++)
+                {
+                    int once = 0;
+                    int twice = 0;
+                    for (int cell : units[u])
+                    {
+                        if (cells[cell] == 0)
+                        {
+                            int mask = candidates(cell);
+                            twice |= once & mask;
+                            once |= mask;
+                        }
+                    }
+                    if ((all & ~used[u] & ~once) != 0)
+                    {
+                        // some value has nowhere left to go in this unit
+                        return false;
+                    }
+                    for (int singles = once & ~twice; singles != 0; singles &= singles - 1)
+                    {
+                        int value = Candidates.first(singles);
+                        int cell = findPlace(u, value);
+                        if (cell < 0)
+                        {
+                            // an earlier single in this unit took the only place for value
+                            return false;
+                        }
+                        assign(cell, value);
+                        propagations++;
+                        changed = true;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private int findPlace(int unit, int value)
+        {
+            for (int cell : units[unit])
+            {
+                if (cells[cell] == 0 && Candidates.contains(candidates(cell), value))
+                {
+                    return cell;
+                }
+            }
+            return -1;
+        }
+
+        // the empty cell with the fewest candidates, or -1 if the board is full
+        private int chooseCell()
+        {
+            int best = -1;
+            int bestCount = Integer.MAX_VALUE;
+            for (int i = 0; i < cells.length; i++)
+            {
+                if (cells[i] == 0)
+                {
+                    int count = Candidates.count(candidates(i));
+                    if (count < bestCount)
+                    {
+                        best = i;
+                        bestCount = count;
+                        if (count <= 1)
+                        {
+                            break;
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        // counts solutions below the current state, stopping once limit of them have been found
+        int search(int limit)
+        {
+            Solver.checkCancelled();
+            nodes++;
+            maxDepth = Math.max(maxDepth, depth);
+            int mark = trailSize;
+            if (!propagate())
+            {
+                backtracks++;
+                undoTo(mark);
+                return 0;
+            }
+
+            int cell = chooseCell();
+            if (cell < 0)
+            {
+                if (solution == null)
+                {
+                    solution = cells.clone();
+                }
+                undoTo(mark);
+                return 1;
+            }
+
+            int mask = candidates(cell);
+            int[] values = new int[Candidates.count(mask)];
+            for (int n = 0; mask != 0; mask &= mask - 1)
+            {
+                values[n++] = Candidates.first(mask);
+            }
+            if (random != null)
+            {
+                for (int i = values.length - 1; i > 0; i--)
+                {
+                    int j = random.nextInt(i + 1);
+                    int tmp = values[i];
+                    values[i] = values[j];
+                    values[j] = tmp;
+                }
+            }
+
+            int count = 0;
+            for (int k = 0; k < values.length && count < limit; k++)
+            {
+                int branch = trailSize;
+                assign(cell, values[k]);
+                depth++;
+                count += search(limit - count);
+                depth--;
+                undoTo(branch);
+            }
+            undoTo(mark);
+            return count;
+        }
+    }
+}
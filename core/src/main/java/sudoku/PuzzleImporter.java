@@ -0,0 +1,555 @@
+package sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams puzzles out of a text file one at a time, working on the raw bytes so
+ * nothing is decoded into Strings on the way. Puzzles are read as BoardStates, which
+ * are much cheaper to make than Boards, so nextState() and states() are the ones to
+ * use for big collections; next() and stream() turn each state into a Board.
+ *
+ * The format is worked out line by line, so files can mix them:
+ *
+ * - a whole puzzle on one line, one character per cell as in Board.fromLine(), with
+ *   '.' or '0' for blanks. Anything after it on the line, such as a rating, is
+ *   ignored, which covers SDM files and most published collections.
+ * - a grid of one line per row, as in puzzles/ and SDK files. Values may be single
+ *   characters, with or without spaces, or whitespace-separated numbers for boards
+ *   bigger than 9x9. '|' and lines made of '-', '+' and '=' are taken as borders.
+ *
+ * Blank lines and lines starting with '#' (SDK metadata) are skipped, and of the
+ * [sections] some SDK files have, only [Puzzle] is read. 16 cells written as one run
+ * of characters are a whole 4x4 puzzle, unless one holds a value above 4; spaced out
+ * or split by '|', they are the first row of a 16x16 grid. Givens that clash in a
+ * row, column or box are rejected.
+ *
+ * A bad puzzle throws IllegalArgumentException naming its line, after which reading
+ * can go on with the next one.
+ */
+public class PuzzleImporter implements Iterator<Board>, Closeable
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+    // longer lines can't be a puzzle plus a few extra fields, so they are rejected rather than buffered
+    private static final int MAX_LINE_LENGTH = 1 << 16;
+    private static final int MAX_SIZE = Board.MAX_BOX_SIZE * Board.MAX_BOX_SIZE;
+    private static final int MAX_CELLS = MAX_SIZE * MAX_SIZE;
+    // the value of each cell character, or -1 for bytes that aren't one
+    private static final byte[] SYMBOLS = new byte[256];
+    // what each byte can be, looked up rather than compared so a line costs a table load per byte
+    private static final byte[] CLASSES = new byte[256];
+    // '|' only draws box borders, and '\r' ends the lines of Windows files
+    private static final int SEPARATOR = 1;
+    private static final int DIGIT = 2;
+    private static final int BORDER = 4;
+
+    static
+    {
+        for (int b = 0; b < SYMBOLS.length; b++)
+        {
+            SYMBOLS[b] = (byte) (b == '.' ? 0 : Board.valueOf((char) b));
+        }
+        for (char ch : new char[] {' ', '\t', '\r', '|'})
+        {
+            CLASSES[ch] = SEPARATOR;
+        }
+        for (char ch = '0'; ch <= '9'; ch++)
+        {
+            CLASSES[ch] = DIGIT;
+        }
+        for (char ch : new char[] {'-', '+', '='})
+        {
+            CLASSES[ch] = BORDER;
+        }
+    }
+
+    private final ReadableByteChannel in;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean endOfInput = false;
+    // the current line is bytes[lineStart, lineEnd), either still in the buffer or,
+    // if it crossed the end of the buffer, copied into pieces
+    private byte[] bytes;
+    private int lineStart;
+    private int lineEnd;
+    private byte[] pieces = new byte[256];
+    private boolean lineTooLong;
+    private int lineNumber;
+    // inside an SDK section other than [Puzzle]
+    private boolean skippingSection = false;
+
+    // the values of the current line
+    private final int[] values = new int[MAX_CELLS];
+    // the grid being read row by row: gridSize is 0 when there is none
+    private final int[] grid = new int[MAX_CELLS];
+    private int gridSize;
+    private int gridRows;
+
+    // occupancy masks of the rows, columns and boxes in Units order, for validating the givens
+    private final int[] unitMasks = new int[3 * MAX_SIZE];
+
+    private BoardState next;
+
+    public PuzzleImporter(ReadableByteChannel in)
+    {
+        this.in = in;
+        // nothing read yet
+        buffer.limit(0);
+    }
+
+    public PuzzleImporter(InputStream in)
+    {
+        this(Channels.newChannel(in));
+    }
+
+    public static PuzzleImporter open(Path file) throws IOException
+    {
+        return new PuzzleImporter(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    /**
+     * The puzzles of a file as a lazy stream, read as it is consumed. Like
+     * Files.lines() the stream holds the file open, so close it when done.
+     */
+    public static Stream<Board> stream(Path file) throws IOException
+    {
+        return open(file).stream();
+    }
+
+    // the rest of the puzzles as a lazy stream; closing it closes this importer
+    public Stream<Board> stream()
+    {
+        return states().map(BoardState::toBoard);
+    }
+
+    // like stream(), without making a Board of each puzzle
+    public Stream<BoardState> states()
+    {
+        Iterator<BoardState> iterator = new Iterator<BoardState>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return PuzzleImporter.this.hasNext();
+            }
+
+            @Override
+            public BoardState next()
+            {
+                return nextState();
+            }
+        };
+        Spliterator<BoardState> puzzles = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(puzzles, false).onClose(() -> {
+            try
+            {
+                close();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // the line the last puzzle returned by next() ended on
+    public int getLineNumber()
+    {
+        return lineNumber;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (next == null)
+        {
+            next = readPuzzle();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Board next()
+    {
+        return nextState().toBoard();
+    }
+
+    public BoardState nextState()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        BoardState puzzle = next;
+        next = null;
+        return puzzle;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+
+    private BoardState readPuzzle()
+    {
+        try
+        {
+            while (readLine())
+            {
+                lineNumber++;
+                if (lineTooLong)
+                {
+                    gridSize = 0;
+                    throw error("line is longer than " + MAX_LINE_LENGTH + " characters");
+                }
+                BoardState puzzle = parseLine();
+                if (puzzle != null)
+                {
+                    return puzzle;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        if (gridSize != 0)
+        {
+            gridSize = 0;
+            throw error("file ends in the middle of a grid");
+        }
+        return null;
+    }
+
+    // finds the next line, without its '\n'; false once the input is used up
+    private boolean readLine() throws IOException
+    {
+        int length = 0;
+        lineTooLong = false;
+        while (true)
+        {
+            if (!buffer.hasRemaining())
+            {
+                if (endOfInput)
+                {
+                    return setLine(pieces, length) || lineTooLong;
+                }
+                buffer.clear();
+                if (in.read(buffer) < 0)
+                {
+                    endOfInput = true;
+                }
+                buffer.flip();
+                continue;
+            }
+            byte[] array = buffer.array();
+            int start = buffer.position();
+            int end = buffer.limit();
+            int i = start;
+            while (i < end && array[i] != '\n')
+            {
+                i++;
+            }
+            if (i < end && length == 0 && !lineTooLong)
+            {
+                // the whole line is in the buffer, which is the usual case
+                buffer.position(i + 1);
+                bytes = array;
+                lineStart = start;
+                lineEnd = i;
+                return true;
+            }
+            length = append(array, start, i - start, length);
+            if (i < end)
+            {
+                buffer.position(i + 1);
+                setLine(pieces, length);
+                return true;
+            }
+            buffer.position(end);
+        }
+    }
+
+    private boolean setLine(byte[] line, int length)
+    {
+        bytes = line;
+        lineStart = 0;
+        lineEnd = length;
+        return length > 0;
+    }
+
+    // copies part of a line into pieces after the length bytes already there, returns the new length
+    private int append(byte[] array, int start, int count, int length)
+    {
+        if (lineTooLong || length + count > MAX_LINE_LENGTH)
+        {
+            // the rest of the line is skipped, readPuzzle() reports it once it ends
+            lineTooLong = true;
+            return 0;
+        }
+        if (length + count > pieces.length)
+        {
+            pieces = Arrays.copyOf(pieces, Math.max(pieces.length * 2, length + count));
+        }
+        System.arraycopy(array, start, pieces, length, count);
+        return length + count;
+    }
+
+    private boolean is(byte b, int byteClass)
+    {
+        return (CLASSES[b & 0xFF] & byteClass) != 0;
+    }
+
+    // the finished puzzle if this line completes one, otherwise null
+    private BoardState parseLine()
+    {
+        int start = lineStart;
+        while (start < lineEnd && is(bytes[start], SEPARATOR))
+        {
+            start++;
+        }
+        if (start == lineEnd || bytes[start] == '#')
+        {
+            return null;
+        }
+        if (bytes[start] == '[')
+        {
+            skippingSection = !startsWith(start, "[puzzle]");
+            return null;
+        }
+        if (skippingSection)
+        {
+            return null;
+        }
+
+        // look at the tokens first: how many, how long the first is, and whether they are all numbers
+        int tokens = 0;
+        int firstLength = 0;
+        int all = DIGIT | BORDER;
+        boolean wide = false;
+        for (int i = start; i < lineEnd; )
+        {
+            int end = i;
+            while (end < lineEnd)
+            {
+                int byteClass = CLASSES[bytes[end] & 0xFF];
+                if (byteClass == SEPARATOR)
+                {
+                    break;
+                }
+                all &= byteClass;
+                end++;
+            }
+            if (tokens++ == 0)
+            {
+                firstLength = end - i;
+            }
+            wide |= end - i > 1;
+            i = end;
+            while (i < lineEnd && is(bytes[i], SEPARATOR))
+            {
+                i++;
+            }
+        }
+        if (all == BORDER)
+        {
+            return null;
+        }
+
+        int count;
+        boolean spaced = tokens > 1;
+        if (gridSize == 0 && tokens > 1 && firstLength > 1 && Board.boxSizeFor(firstLength) != 0)
+        {
+            // a whole puzzle followed by other fields
+            count = readSymbols(start, start + firstLength);
+            spaced = false;
+        }
+        else if (tokens > 1 && all == DIGIT && wide)
+        {
+            count = readNumbers(start);
+        }
+        else
+        {
+            count = readSymbols(start, lineEnd);
+        }
+        return addCells(count, spaced);
+    }
+
+    private boolean startsWith(int start, String prefix)
+    {
+        if (lineEnd - start < prefix.length())
+        {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++)
+        {
+            if (Character.toLowerCase((char) bytes[start + i]) != prefix.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // one value per character, skipping separators; returns how many were read
+    private int readSymbols(int start, int end)
+    {
+        int count = 0;
+        for (int i = start; i < end; i++)
+        {
+            byte b = bytes[i];
+            int value = SYMBOLS[b & 0xFF];
+            if (value < 0)
+            {
+                if (is(b, SEPARATOR))
+                {
+                    continue;
+                }
+                gridSize = 0;
+                throw error("unexpected character '" + (char) b + "'");
+            }
+            if (count == MAX_CELLS)
+            {
+                gridSize = 0;
+                throw error("too many cells");
+            }
+            values[count++] = value;
+        }
+        return count;
+    }
+
+    // one value per whitespace-separated number; returns how many were read
+    private int readNumbers(int start)
+    {
+        int count = 0;
+        for (int i = start; i < lineEnd; )
+        {
+            int value = 0;
+            while (i < lineEnd && !is(bytes[i], SEPARATOR))
+            {
+                // anything bigger than a board can hold is rejected later, this only has to not overflow
+                value = Math.min(value * 10 + bytes[i] - '0', MAX_SIZE + 1);
+                i++;
+            }
+            if (count == MAX_CELLS)
+            {
+                gridSize = 0;
+                throw error("too many cells");
+            }
+            values[count++] = value;
+            while (i < lineEnd && is(bytes[i], SEPARATOR))
+            {
+                i++;
+            }
+        }
+        return count;
+    }
+
+    // the line's count values are either a whole puzzle or the next row of a grid;
+    // spaced is whether they were split up by separators
+    private BoardState addCells(int count, boolean spaced)
+    {
+        if (gridSize == 0)
+        {
+            int boxSize = Board.boxSizeFor(count);
+            if (boxSize != 0 && !(count == 16 && (spaced || hasValueAbove(count, 4))))
+            {
+                return build(values, boxSize);
+            }
+            if (!isRowLength(count))
+            {
+                throw error("expected a whole puzzle or a row of a grid but got " + count + " cells");
+            }
+            gridSize = count;
+            gridRows = 0;
+        }
+        else if (count != gridSize)
+        {
+            int expected = gridSize;
+            gridSize = 0;
+            throw error("expected a row of " + expected + " cells but got " + count);
+        }
+        System.arraycopy(values, 0, grid, gridRows * gridSize, count);
+        gridRows++;
+        if (gridRows < gridSize)
+        {
+            return null;
+        }
+        int size = gridSize;
+        gridSize = 0;
+        return build(grid, Board.boxSizeFor(size * size));
+    }
+
+    private boolean hasValueAbove(int count, int max)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            if (values[i] > max)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRowLength(int count)
+    {
+        for (int boxSize = Board.MIN_BOX_SIZE; boxSize <= Board.MAX_BOX_SIZE; boxSize++)
+        {
+            if (boxSize * boxSize == count)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // checks the givens against each other with the unit masks
+    private BoardState build(int[] cells, int boxSize)
+    {
+        Units units = Units.of(boxSize);
+        Arrays.fill(unitMasks, 0, 3 * units.size, 0);
+        for (int i = 0; i < units.cells; i++)
+        {
+            int value = cells[i];
+            if (value == 0)
+            {
+                continue;
+            }
+            if (value > units.size)
+            {
+                throw error(value + " is out of range for cell (" + i / units.size + ", " + i % units.size + ")");
+            }
+            int[] cellUnits = units.cellUnits[i];
+            int bit = Candidates.bit(value);
+            if (((unitMasks[cellUnits[0]] | unitMasks[cellUnits[1]] | unitMasks[cellUnits[2]]) & bit) != 0)
+            {
+                throw error(value + " is not a possible value for cell (" + i / units.size + ", " + i % units.size + ")");
+            }
+            unitMasks[cellUnits[0]] |= bit;
+            unitMasks[cellUnits[1]] |= bit;
+            unitMasks[cellUnits[2]] |= bit;
+        }
+        return BoardState.of(boxSize, cells);
+    }
+
+    private IllegalArgumentException error(String message)
+    {
+        return new IllegalArgumentException("Line " + lineNumber + ": " + message);
+    }
+}
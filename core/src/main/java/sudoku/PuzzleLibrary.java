@@ -0,0 +1,724 @@
+package sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A collection of 9x9 puzzles on disk that can be queried without reading it through.
+ * Puzzles are appended to a packed data file (see PackedFormat, with metadata) and
+ * numbered from 0 in that order. Their ids are filed in an index by clue count,
+ * difficulty and symmetry of the givens, and a bitmap keeps which ones the player has
+ * solved. Counting or picking a random puzzle, say a hard one with 24 clues, adds up
+ * bucket sizes held in memory and then reads one id from the index file, however big
+ * the library gets.
+ *
+ * A library is a directory holding puzzles.sdkp, index.bin and solved.bin. The index
+ * file is a 16 byte header (the magic "SDKI", a version short, 2 reserved bytes and the
+ * number of puzzles it covers) followed by blocks of BLOCK_SIZE bytes, each holding the
+ * ids of one bucket: the bucket, the number of ids and the ids. All of a bucket's blocks
+ * are full except its last. Both files are written on flush(), the data first, so if
+ * the program dies in between the index is caught up from the data file on the next
+ * open (or rebuilt from it, if it doesn't add up).
+ *
+ * The files are read and written through RandomAccessFile rather than a FileChannel:
+ * interrupting a thread in the middle of channel I/O closes the channel, and solver jobs
+ * are cancelled by interrupting them. Every method is synchronized except the rating in
+ * add(Board), so several threads can rate and add puzzles at once.
+ */
+public class PuzzleLibrary implements Closeable
+{
+    static final String DATA_FILE = "puzzles.sdkp";
+    static final String INDEX_FILE = "index.bin";
+    static final String SOLVED_FILE = "solved.bin";
+
+    static final int INDEX_MAGIC = 0x53444B49; // "SDKI"
+    static final short INDEX_VERSION = 1;
+    static final int INDEX_HEADER_SIZE = 16;
+    static final int BLOCK_SIZE = 4096;
+    static final int IDS_PER_BLOCK = BLOCK_SIZE / 4 - 2;
+
+    private static final int FLAGS = PackedFormat.FLAG_METADATA;
+    private static final int RECORD_SIZE = PackedFormat.recordSize(FLAGS);
+    // new records wait here, and are written with the index once it fills up
+    private static final int BUFFERED_RECORDS = (1 << 16) / RECORD_SIZE;
+
+    // a bucket per clue count, grade (0 for unknown, then one per difficulty) and symmetry
+    private static final int GRADES = Difficulty.values().length + 1;
+    private static final int SYMMETRIES = Symmetry.values().length;
+    private static final int BUCKETS = 82 * GRADES * SYMMETRIES;
+
+    // how many random matches pick() tries before counting through the unsolved ones instead
+    private static final int PICK_ATTEMPTS = 64;
+
+    private final RandomAccessFile data;
+    private final RandomAccessFile index;
+    private final RandomAccessFile solvedFile;
+
+    private final byte[] buffer = new byte[BUFFERED_RECORDS * RECORD_SIZE];
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final Bucket[] buckets = new Bucket[BUCKETS];
+    private BitSet solved;
+    private long count;
+    // puzzles below this are in the data file, the rest are in buffer
+    private long written;
+    // blocks in the index file, counting the ones only allocated so far
+    private int blockCount;
+
+    private PuzzleLibrary(RandomAccessFile data, RandomAccessFile index, RandomAccessFile solvedFile)
+    {
+        this.data = data;
+        this.index = index;
+        this.solvedFile = solvedFile;
+    }
+
+    // opens the library in directory, creating it if there is none yet
+    public static PuzzleLibrary open(Path directory) throws IOException
+    {
+        Files.createDirectories(directory);
+        List<RandomAccessFile> files = new ArrayList<>();
+        try
+        {
+            for (String name : new String[] {DATA_FILE, INDEX_FILE, SOLVED_FILE})
+            {
+                files.add(new RandomAccessFile(directory.resolve(name).toFile(), "rw"));
+            }
+            FileLock lock;
+            try
+            {
+                lock = files.get(0).getChannel().tryLock();
+            }
+            catch (OverlappingFileLockException e)
+            {
+                lock = null;
+            }
+            if (lock == null)
+            {
+                throw new IOException("The library in " + directory + " is already open");
+            }
+            PuzzleLibrary library = new PuzzleLibrary(files.get(0), files.get(1), files.get(2));
+            library.load();
+            return library;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            for (RandomAccessFile file : files)
+            {
+                try
+                {
+                    file.close();
+                }
+                catch (IOException suppressed)
+                {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void load() throws IOException
+    {
+        if (data.length() == 0)
+        {
+            ByteBuffer header = ByteBuffer.allocate(PackedFormat.HEADER_SIZE);
+            PackedFormat.writeHeader(header, FLAGS);
+            data.write(header.array());
+        }
+        byte[] header = new byte[PackedFormat.HEADER_SIZE];
+        data.seek(0);
+        data.readFully(header);
+        if (PackedFormat.readHeader(ByteBuffer.wrap(header)) != FLAGS)
+        {
+            throw new IOException("Not a puzzle library data file");
+        }
+        // a record cut off by a crash is dropped
+        count = (data.length() - PackedFormat.HEADER_SIZE) / RECORD_SIZE;
+        written = count;
+        data.setLength(PackedFormat.HEADER_SIZE + count * RECORD_SIZE);
+
+        byte[] bits = new byte[(int) solvedFile.length()];
+        solvedFile.seek(0);
+        solvedFile.readFully(bits);
+        solved = BitSet.valueOf(bits);
+        if (solved.length() > count)
+        {
+            // marks for puzzles that were lost with the buffer, the ids will be handed out again
+            solved.clear((int) count, solved.length());
+            solvedFile.setLength(0);
+            solvedFile.write(solved.toByteArray());
+        }
+
+        long indexed = readIndex();
+        if (indexed < 0)
+        {
+            Arrays.fill(buckets, null);
+            blockCount = 0;
+            index.setLength(0);
+            indexed = 0;
+        }
+        catchUp(indexed);
+    }
+
+    // fills the buckets from the index file and returns how many puzzles it covers, or -1 if it doesn't add up
+    private long readIndex() throws IOException
+    {
+        long length = index.length();
+        if (length < INDEX_HEADER_SIZE || (length - INDEX_HEADER_SIZE) % BLOCK_SIZE != 0)
+        {
+            return -1;
+        }
+        ByteBuffer header = read(index, 0, INDEX_HEADER_SIZE);
+        if (header.getInt() != INDEX_MAGIC || header.getShort() != INDEX_VERSION)
+        {
+            return -1;
+        }
+        header.getShort();
+        long indexed = header.getLong();
+        if (indexed > count)
+        {
+            return -1;
+        }
+        int blocks = (int) ((length - INDEX_HEADER_SIZE) / BLOCK_SIZE);
+        long total = 0;
+        for (int b = 0; b < blocks; b++)
+        {
+            ByteBuffer blockHeader = read(index, blockPosition(b), 8);
+            int key = blockHeader.getInt();
+            int ids = blockHeader.getInt();
+            if (key < 0 || key >= BUCKETS || ids < 1 || ids > IDS_PER_BLOCK)
+            {
+                return -1;
+            }
+            Bucket bucket = bucket(key);
+            if (bucket.size % IDS_PER_BLOCK != 0)
+            {
+                return -1;
+            }
+            bucket.addBlock(b);
+            bucket.size += ids;
+            total += ids;
+        }
+        if (total != indexed)
+        {
+            return -1;
+        }
+        blockCount = blocks;
+        // the last block of each bucket is kept in memory, that's where new ids go
+        for (Bucket bucket : buckets)
+        {
+            if (bucket != null)
+            {
+                int last = bucket.blockCount - 1;
+                int[] ids = new int[IDS_PER_BLOCK];
+                readBlock(bucket.blocks[last], ids, (int) (bucket.size - (long) last * IDS_PER_BLOCK));
+                bucket.firstLoaded = last;
+                bucket.loaded.add(ids);
+            }
+        }
+        return indexed;
+    }
+
+    // indexes the puzzles from first on straight from the data file
+    private void catchUp(long first) throws IOException
+    {
+        for (long id = first; id < count; )
+        {
+            int records = (int) Math.min(BUFFERED_RECORDS, count - id);
+            data.seek(PackedFormat.HEADER_SIZE + id * RECORD_SIZE);
+            data.readFully(buffer, 0, records * RECORD_SIZE);
+            for (int i = 0; i < records; i++, id++)
+            {
+                file((int) id, key(buffer, i * RECORD_SIZE));
+            }
+            flushIndex(id);
+        }
+        flushIndex(count);
+    }
+
+    public synchronized long size()
+    {
+        return count;
+    }
+
+    // rates the puzzle with StepSolver, then adds it; returns its id
+    public long add(Board puzzle) throws IOException
+    {
+        checkSize(puzzle);
+        return add(puzzle, StepSolver.rate(puzzle));
+    }
+
+    // difficulty is null if it isn't known; returns the puzzle's id
+    public synchronized long add(Board puzzle, Difficulty difficulty) throws IOException
+    {
+        checkSize(puzzle);
+        if (count == Integer.MAX_VALUE)
+        {
+            throw new IllegalStateException("The library is full");
+        }
+        if (count - written == BUFFERED_RECORDS)
+        {
+            flush();
+        }
+        int offset = (int) (count - written) * RECORD_SIZE;
+        ByteBuffer record = ByteBuffer.wrap(buffer, offset, RECORD_SIZE);
+        PackedFormat.packGrid(puzzle, record);
+        record.put((byte) PackedFormat.countClues(puzzle));
+        // 0 means unknown, so the grades are stored from 1
+        record.put((byte) (difficulty == null ? 0 : difficulty.ordinal() + 1));
+        long id = count++;
+        file((int) id, key(buffer, offset));
+        return id;
+    }
+
+    private static void checkSize(Board puzzle)
+    {
+        if (puzzle.getSize() != 9)
+        {
+            throw new IllegalArgumentException("The library only holds 9x9 puzzles");
+        }
+    }
+
+    public synchronized Board get(long id) throws IOException
+    {
+        Board puzzle = new Board();
+        PackedFormat.unpackGrid(ByteBuffer.wrap(readRecord(id)), 0, puzzle);
+        return puzzle;
+    }
+
+    // null if the puzzle was added without one
+    public synchronized Difficulty getDifficulty(long id) throws IOException
+    {
+        int grade = readRecord(id)[PackedFormat.GRID_SIZE + 1];
+        return grade == 0 ? null : Difficulty.values()[grade - 1];
+    }
+
+    public synchronized int getClueCount(long id) throws IOException
+    {
+        return readRecord(id)[PackedFormat.GRID_SIZE];
+    }
+
+    public synchronized boolean isSolved(long id)
+    {
+        checkId(id);
+        return solved.get((int) id);
+    }
+
+    // written through right away, only the byte holding the puzzle's bit
+    public synchronized void setSolved(long id, boolean isSolved) throws IOException
+    {
+        checkId(id);
+        solved.set((int) id, isSolved);
+        int first = (int) id & ~7;
+        byte[] bits = solved.get(first, first + 8).toByteArray();
+        solvedFile.seek(id >> 3);
+        solvedFile.write(bits.length == 0 ? 0 : bits[0]);
+    }
+
+    public Query query()
+    {
+        return new Query();
+    }
+
+    // writes the waiting puzzles, then the index blocks that changed
+    public synchronized void flush() throws IOException
+    {
+        if (count > written)
+        {
+            data.seek(PackedFormat.HEADER_SIZE + written * RECORD_SIZE);
+            data.write(buffer, 0, (int) (count - written) * RECORD_SIZE);
+            written = count;
+        }
+        flushIndex(count);
+    }
+
+    // writes every block held in memory of the buckets that changed, then a header covering the first indexed puzzles
+    private void flushIndex(long indexed) throws IOException
+    {
+        for (int key = 0; key < BUCKETS; key++)
+        {
+            Bucket bucket = buckets[key];
+            if (bucket == null || !bucket.dirty)
+            {
+                continue;
+            }
+            for (int k = 0; k < bucket.loaded.size(); k++)
+            {
+                int b = bucket.firstLoaded + k;
+                int ids = (int) Math.min(IDS_PER_BLOCK, bucket.size - (long) b * IDS_PER_BLOCK);
+                ByteBuffer out = ByteBuffer.wrap(block);
+                out.putInt(key).putInt(ids);
+                int[] loaded = bucket.loaded.get(k);
+                for (int i = 0; i < ids; i++)
+                {
+                    out.putInt(loaded[i]);
+                }
+                Arrays.fill(block, out.position(), BLOCK_SIZE, (byte) 0);
+                index.seek(blockPosition(bucket.blocks[b]));
+                index.write(block);
+            }
+            int[] last = bucket.loaded.get(bucket.loaded.size() - 1);
+            bucket.loaded.clear();
+            bucket.loaded.add(last);
+            bucket.firstLoaded = bucket.blockCount - 1;
+            bucket.dirty = false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+        header.putInt(INDEX_MAGIC).putShort(INDEX_VERSION).putShort((short) 0).putLong(indexed);
+        index.seek(0);
+        index.write(header.array());
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            try
+            {
+                data.close();
+            }
+            finally
+            {
+                try
+                {
+                    index.close();
+                }
+                finally
+                {
+                    solvedFile.close();
+                }
+            }
+        }
+    }
+
+    private void checkId(long id)
+    {
+        if (id < 0 || id >= count)
+        {
+            throw new IndexOutOfBoundsException("Puzzle " + id + " of " + count);
+        }
+    }
+
+    private byte[] readRecord(long id) throws IOException
+    {
+        checkId(id);
+        byte[] record = new byte[RECORD_SIZE];
+        if (id >= written)
+        {
+            System.arraycopy(buffer, (int) (id - written) * RECORD_SIZE, record, 0, RECORD_SIZE);
+        }
+        else
+        {
+            data.seek(PackedFormat.HEADER_SIZE + id * RECORD_SIZE);
+            data.readFully(record);
+        }
+        return record;
+    }
+
+    // the bucket of the record starting at offset
+    private static int key(byte[] records, int offset) throws IOException
+    {
+        int clues = records[offset + PackedFormat.GRID_SIZE];
+        int grade = records[offset + PackedFormat.GRID_SIZE + 1];
+        if (clues < 0 || clues > 81 || grade < 0 || grade >= GRADES)
+        {
+            throw new IOException("Corrupt puzzle library record");
+        }
+        boolean[] givens = new boolean[81];
+        for (int i = 0; i < 81; i++)
+        {
+            givens[i] = (records[offset + (i >> 1)] >> ((i & 1) * 4) & 0xF) != 0;
+        }
+        return (clues * GRADES + grade) * SYMMETRIES + Symmetry.of(givens, 9).ordinal();
+    }
+
+    private Bucket bucket(int key)
+    {
+        Bucket bucket = buckets[key];
+        if (bucket == null)
+        {
+            bucket = new Bucket();
+            buckets[key] = bucket;
+        }
+        return bucket;
+    }
+
+    // adds id to the end of its bucket, in memory until the next flush
+    private void file(int id, int key)
+    {
+        Bucket bucket = bucket(key);
+        int slot = (int) (bucket.size % IDS_PER_BLOCK);
+        if (slot == 0)
+        {
+            bucket.addBlock(blockCount++);
+            bucket.loaded.add(new int[IDS_PER_BLOCK]);
+        }
+        bucket.loaded.get(bucket.loaded.size() - 1)[slot] = id;
+        bucket.size++;
+        bucket.dirty = true;
+    }
+
+    // the nth id filed in bucket
+    private int idAt(Bucket bucket, long n) throws IOException
+    {
+        int b = (int) (n / IDS_PER_BLOCK);
+        int slot = (int) (n % IDS_PER_BLOCK);
+        if (b >= bucket.firstLoaded)
+        {
+            return bucket.loaded.get(b - bucket.firstLoaded)[slot];
+        }
+        return read(index, blockPosition(bucket.blocks[b]) + 8 + 4L * slot, 4).getInt();
+    }
+
+    // copies the ids of the bucket's block b into ids and returns how many there are
+    private int readIds(Bucket bucket, int b, int[] ids) throws IOException
+    {
+        int n = (int) Math.min(IDS_PER_BLOCK, bucket.size - (long) b * IDS_PER_BLOCK);
+        if (b >= bucket.firstLoaded)
+        {
+            System.arraycopy(bucket.loaded.get(b - bucket.firstLoaded), 0, ids, 0, n);
+        }
+        else
+        {
+            readBlock(bucket.blocks[b], ids, n);
+        }
+        return n;
+    }
+
+    // reads the first n ids of index file block b
+    private void readBlock(int b, int[] ids, int n) throws IOException
+    {
+        read(index, blockPosition(b) + 8, 4 * n).asIntBuffer().get(ids, 0, n);
+    }
+
+    private static long blockPosition(int b)
+    {
+        return INDEX_HEADER_SIZE + (long) b * BLOCK_SIZE;
+    }
+
+    // RandomAccessFile.readInt() reads a byte at a time, so bytes are read in one go and decoded here
+    private static ByteBuffer read(RandomAccessFile file, long position, int length) throws IOException
+    {
+        byte[] bytes = new byte[length];
+        file.seek(position);
+        file.readFully(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    // the ids filed under one key, in the order they were added
+    private static final class Bucket
+    {
+        // where the bucket's blocks are in the index file
+        int[] blocks = new int[1];
+        int blockCount;
+        long size;
+        // the blocks from firstLoaded on are held in memory: the ones not written since they filled up, and the last
+        int firstLoaded;
+        final List<int[]> loaded = new ArrayList<>();
+        boolean dirty;
+
+        void addBlock(int b)
+        {
+            if (blockCount == blocks.length)
+            {
+                blocks = Arrays.copyOf(blocks, blockCount * 2);
+            }
+            blocks[blockCount++] = b;
+        }
+    }
+
+    /**
+     * Which puzzles to count or pick from. A condition left out matches every puzzle,
+     * and puzzles of unknown difficulty only match when difficulty is left out.
+     */
+    public class Query
+    {
+        private int minClues = 0;
+        private int maxClues = 81;
+        // a bit per grade and per symmetry
+        private int grades = -1;
+        private int symmetries = -1;
+        private Boolean solved;
+
+        private Query()
+        {
+        }
+
+        public Query clues(int min, int max)
+        {
+            minClues = min;
+            maxClues = max;
+            return this;
+        }
+
+        public Query clues(int clues)
+        {
+            return clues(clues, clues);
+        }
+
+        // puzzles of any of these difficulties
+        public Query difficulty(Difficulty... difficulties)
+        {
+            grades = 0;
+            for (Difficulty difficulty : difficulties)
+            {
+                grades |= 1 << difficulty.ordinal() + 1;
+            }
+            return this;
+        }
+
+        // puzzles with any of these symmetries
+        public Query symmetry(Symmetry... kinds)
+        {
+            symmetries = 0;
+            for (Symmetry kind : kinds)
+            {
+                symmetries |= 1 << kind.ordinal();
+            }
+            return this;
+        }
+
+        public Query solved(boolean isSolved)
+        {
+            solved = isSolved;
+            return this;
+        }
+
+        public long count() throws IOException
+        {
+            synchronized (PuzzleLibrary.this)
+            {
+                if (solved == null)
+                {
+                    return matching();
+                }
+                long solvedMatches = solvedMatches().size();
+                return solved ? solvedMatches : matching() - solvedMatches;
+            }
+        }
+
+        // the id of a matching puzzle chosen uniformly at random, or -1 if there is none
+        public long pick(Random random) throws IOException
+        {
+            synchronized (PuzzleLibrary.this)
+            {
+                if (Boolean.TRUE.equals(solved))
+                {
+                    // a player solves few puzzles, so the bitmap is the better index for those
+                    List<Integer> ids = solvedMatches();
+                    return ids.isEmpty() ? -1 : ids.get(random.nextInt(ids.size()));
+                }
+                long matching = matching();
+                if (matching == 0)
+                {
+                    return -1;
+                }
+                for (int attempt = 0; attempt < PICK_ATTEMPTS; attempt++)
+                {
+                    int id = nth(random.nextLong(matching));
+                    if (solved == null || !PuzzleLibrary.this.solved.get(id))
+                    {
+                        return id;
+                    }
+                }
+                // nearly every match is solved, so count through the unsolved ones instead
+                long unsolved = matching - solvedMatches().size();
+                return unsolved == 0 ? -1 : nthUnsolved(random.nextLong(unsolved));
+            }
+        }
+
+        private boolean matches(int key)
+        {
+            int symmetry = key % SYMMETRIES;
+            int grade = key / SYMMETRIES % GRADES;
+            int clues = key / (SYMMETRIES * GRADES);
+            return clues >= minClues && clues <= maxClues && (grades >> grade & 1) != 0 && (symmetries >> symmetry & 1) != 0;
+        }
+
+        // how many puzzles match, solved or not
+        private long matching()
+        {
+            long total = 0;
+            for (int key = 0; key < BUCKETS; key++)
+            {
+                if (buckets[key] != null && matches(key))
+                {
+                    total += buckets[key].size;
+                }
+            }
+            return total;
+        }
+
+        // the nth match, counting through the matching buckets in order
+        private int nth(long n) throws IOException
+        {
+            for (int key = 0; key < BUCKETS; key++)
+            {
+                Bucket bucket = buckets[key];
+                if (bucket != null && matches(key))
+                {
+                    if (n < bucket.size)
+                    {
+                        return idAt(bucket, n);
+                    }
+                    n -= bucket.size;
+                }
+            }
+            throw new IllegalStateException("Fewer matches than counted");
+        }
+
+        private int nthUnsolved(long n) throws IOException
+        {
+            int[] ids = new int[IDS_PER_BLOCK];
+            for (int key = 0; key < BUCKETS; key++)
+            {
+                Bucket bucket = buckets[key];
+                if (bucket == null || !matches(key))
+                {
+                    continue;
+                }
+                for (int b = 0; b < bucket.blockCount; b++)
+                {
+                    int found = readIds(bucket, b, ids);
+                    for (int i = 0; i < found; i++)
+                    {
+                        if (!PuzzleLibrary.this.solved.get(ids[i]) && n-- == 0)
+                        {
+                            return ids[i];
+                        }
+                    }
+                }
+            }
+            throw new IllegalStateException("Fewer unsolved matches than counted");
+        }
+
+        private List<Integer> solvedMatches() throws IOException
+        {
+            List<Integer> ids = new ArrayList<>();
+            BitSet bits = PuzzleLibrary.this.solved;
+            for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1))
+            {
+                if (matches(key(readRecord(id), 0)))
+                {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package sudoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A bounded queue of freshly generated puzzles, so "Generate random board" doesn't have
+ * to wait for the generator. Background producer threads fill the queue up to its
+ * capacity, then sleep until it drains to the low-water mark and fill it up again.
+ * The pool can be saved to a packed puzzle file on exit and loaded on the next start.
+ */
+public class PuzzlePool
+{
+    private final BlockingQueue<Board> queue;
+    private final int lowWaterMark;
+    private final int producerCount;
+    private final List<Thread> producers = new ArrayList<>();
+
+    private final Object lock = new Object();
+    private boolean refilling = true;
+    private volatile boolean running = false;
+
+    public PuzzlePool(int capacity, int lowWaterMark, int producerCount)
+    {
+        if (lowWaterMark < 0 || lowWaterMark >= capacity)
+        {
+            throw new IllegalArgumentException("Low-water mark must be between 0 and the capacity");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.lowWaterMark = lowWaterMark;
+        this.producerCount = producerCount;
+    }
+
+    public int size()
+    {
+        return queue.size();
+    }
+
+    public void start()
+    {
+        running = true;
+        for (int i = 0; i < producerCount; i++)
+        {
+            Thread thread = new Thread(this::produce, "puzzle-pool-" + i);
+            // generating puzzles should never keep the app from exiting
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            producers.add(thread);
+            thread.start();
+        }
+    }
+
+    public void stop()
+    {
+        running = false;
+        synchronized (lock)
+        {
+            lock.notifyAll();
+        }
+        for (Thread thread : producers)
+        {
+            thread.interrupt();
+        }
+        producers.clear();
+    }
+
+    /**
+     * Takes a puzzle with a unique solution out of the pool, or returns null if the pool
+     * has run dry. Either way the producers are woken once it is down to the low-water
+     * mark, so callers that must not block (the FX thread) can generate one elsewhere.
+     */
+    public Board poll()
+    {
+        Board board = queue.poll();
+        if (queue.size() <= lowWaterMark)
+        {
+            synchronized (lock)
+            {
+                refilling = true;
+                lock.notifyAll();
+            }
+        }
+        return board;
+    }
+
+    // like poll(), but generates the puzzle on the calling thread if the pool has run dry
+    public Board take()
+    {
+        Board board = poll();
+        return board != null ? board : generate();
+    }
+
+    private void produce()
+    {
+        while (running)
+        {
+            synchronized (lock)
+            {
+                while (running && !refilling)
+                {
+                    try
+                    {
+                        lock.wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                }
+            }
+            if (!running)
+            {
+                return;
+            }
+            Board board;
+            try
+            {
+                board = generate();
+            }
+            catch (CancellationException e)
+            {
+                // stop() interrupted the generator
+                if (!running)
+                {
+                    return;
+                }
+                continue;
+            }
+            if (!queue.offer(board))
+            {
+                // full, wait until poll() drains it to the low-water mark
+                synchronized (lock)
+                {
+                    refilling = false;
+                }
+            }
+        }
+    }
+
+    private static Board generate()
+    {
+        Board board = new Board();
+        board.generateMinimumSolvable();
+        return board;
+    }
+
+    // writes the puzzles currently in the pool, they stay in the pool
+    public void save(Path file) throws IOException
+    {
+        try (PackedPuzzleWriter writer = new PackedPuzzleWriter(file, false, false))
+        {
+            for (Board board : queue)
+            {
+                writer.write(board);
+            }
+        }
+    }
+
+    /**
+     * Adds the puzzles saved by save() to the pool, as far as they fit, and deletes the
+     * file so the same puzzles are not handed out again after the next start.
+     */
+    public void load(Path file) throws IOException
+    {
+        if (!Files.exists(file))
+        {
+            return;
+        }
+        // read rather than mapped like PackedPuzzleReader does, a mapped file can't be deleted on Windows
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        int recordSize = PackedFormat.recordSize(PackedFormat.readHeader(in));
+        for (int offset = PackedFormat.HEADER_SIZE; offset + recordSize <= in.limit(); offset += recordSize)
+        {
+            Board board = new Board();
+            try
+            {
+                PackedFormat.unpackGrid(in, offset, board);
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IOException(e.getMessage(), e);
+            }
+            if (!queue.offer(board))
+            {
+                break;
+            }
+        }
+        Files.delete(file);
+    }
+}
@@ -0,0 +1,353 @@
+package sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file holding the game in progress, so it survives the app closing
+ * or crashing. start() writes the givens once, then every move, undo and redo of the
+ * board it listens to is appended as a fixed-size record. Records are buffered and
+ * written in batches, at the latest FLUSH_DELAY_MILLIS after they were made.
+ *
+ * Layout: the header is "SDKS", a version byte, the board size (9 for 9x9), two reserved bytes,
+ * one byte per given cell (0 for empty) and a CRC32 of all that. Each record is a
+ * type byte, the packed move (see Move.pack), a reserved byte and the low 16 bits of
+ * a CRC32 of the first six bytes. A crash can leave a torn record at the end; restore()
+ * stops at the first record that doesn't check out and cuts the file there.
+ */
+public class SessionLog implements MoveListener, Closeable
+{
+    private static final byte[] MAGIC = "SDKS".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int PREFIX_SIZE = 8;
+    private static final int RECORD_SIZE = 8;
+
+    private static final byte MOVE = 1;
+    private static final byte UNDO = 2;
+    private static final byte REDO = 3;
+
+    private static final int BUFFER_RECORDS = 512;
+    private static final long FLUSH_DELAY_MILLIS = 100;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService flusher;
+    private boolean flushScheduled;
+    // a failed background flush, reported by the next flush() or close()
+    private IOException failure;
+
+    public SessionLog(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Begins a new session with the board's current cells as the givens, throwing away
+     * whatever the file held before.
+     */
+    public synchronized void start(Board givens) throws IOException
+    {
+        buffer.clear();
+        channel.truncate(0);
+        int size = givens.getSize();
+        ByteBuffer header = ByteBuffer.allocate(headerSize(size));
+        header.put(MAGIC).put((byte) VERSION).put((byte) size).put((byte) 0).put((byte) 0);
+        for (int r = 0; r < size; r++)
+        {
+            for (int c = 0; c < size; c++)
+            {
+                header.put((byte) givens.getCell(r, c));
+            }
+        }
+        crc.reset();
+        crc.update(header.array(), 0, header.capacity() - 4);
+        header.putInt((int) crc.getValue());
+        header.flip();
+        channel.position(0);
+        while (header.hasRemaining())
+        {
+            channel.write(header);
+        }
+        channel.force(false);
+    }
+
+    private static int headerSize(int size)
+    {
+        return PREFIX_SIZE + size * size + 4;
+    }
+
+    // the box size of the board in the saved session, or 0 if there is none
+    public synchronized int getSavedBoxSize() throws IOException
+    {
+        if (channel.size() < PREFIX_SIZE)
+        {
+            return 0;
+        }
+        ByteBuffer prefix = ByteBuffer.allocate(PREFIX_SIZE);
+        channel.read(prefix, 0);
+        int size = readPrefix(prefix);
+        return size == 0 ? 0 : Board.boxSizeFor(size * size);
+    }
+
+    /**
+     * Replays the saved session onto board: its cells become the givens followed by every
+     * logged move, and its move history is rebuilt so undo and redo carry on where they
+     * left off. Returns the givens, or null if the file holds no usable session or one
+     * for another size of board, in which case board is left alone. Later records are
+     * appended after the last good one.
+     */
+    public synchronized Board restore(Board board) throws IOException
+    {
+        long size = channel.size();
+        if (size < headerSize(board.getSize()))
+        {
+            return null;
+        }
+        // read rather than mapped: a session is a few KB, and a file with a live mapping
+        // can't be truncated on Windows
+        ByteBuffer in = ByteBuffer.allocate((int) size);
+        while (in.hasRemaining())
+        {
+            if (channel.read(in, in.position()) < 0)
+            {
+                break;
+            }
+        }
+        size = in.position();
+        Board givens = readHeader(in, board.getBoxSize());
+        if (givens == null)
+        {
+            return null;
+        }
+
+        board.clearMoves();
+        board.copy(givens);
+        MoveJournal moves = board.getMoves();
+        byte[] record = new byte[RECORD_SIZE];
+        long end = headerSize(board.getSize());
+        while (end + RECORD_SIZE <= size)
+        {
+            in.get((int) end, record);
+            if (!replay(record, board, moves))
+            {
+                break;
+            }
+            end += RECORD_SIZE;
+        }
+        if (end < size)
+        {
+            // a torn or corrupt tail, left by a crash part way through a write
+            channel.truncate(end);
+        }
+        channel.position(end);
+        return givens;
+    }
+
+    // the board size the header starts with, or 0 if it isn't a session header
+    private static int readPrefix(ByteBuffer in)
+    {
+        for (int i = 0; i < MAGIC.length; i++)
+        {
+            if (in.get(i) != MAGIC[i])
+            {
+                return 0;
+            }
+        }
+        return in.get(4) == VERSION ? in.get(5) : 0;
+    }
+
+    // the givens, or null if the header is damaged or for a board of another box size
+    private Board readHeader(ByteBuffer in, int boxSize)
+    {
+        Board givens = new Board(boxSize);
+        int size = givens.getSize();
+        if (readPrefix(in) != size)
+        {
+            return null;
+        }
+        int headerSize = headerSize(size);
+        byte[] header = new byte[headerSize - 4];
+        in.get(0, header);
+        crc.reset();
+        crc.update(header, 0, header.length);
+        if (in.getInt(headerSize - 4) != (int) crc.getValue())
+        {
+            return null;
+        }
+        for (int i = 0; i < size * size; i++)
+        {
+            int value = header[PREFIX_SIZE + i];
+            if (value < 0 || value > size)
+            {
+                return null;
+            }
+            givens.rawSetCell(i / size, i % size, value);
+        }
+        return givens;
+    }
+
+    // applies one record, or returns false if it is damaged or doesn't fit the board
+    private boolean replay(byte[] record, Board board, MoveJournal moves)
+    {
+        crc.reset();
+        crc.update(record, 0, 6);
+        int check = (record[6] & 0xFF) << 8 | (record[7] & 0xFF);
+        if (check != ((int) crc.getValue() & 0xFFFF))
+        {
+            return false;
+        }
+        int move = (record[1] & 0xFF) << 24 | (record[2] & 0xFF) << 16 | (record[3] & 0xFF) << 8 | (record[4] & 0xFF);
+        int row = Move.row(move);
+        int col = Move.col(move);
+        int previousValue = Move.previousValue(move);
+        int newValue = Move.newValue(move);
+        int size = board.getSize();
+        if (row >= size || col >= size || previousValue > size || newValue > size)
+        {
+            return false;
+        }
+        switch (record[0])
+        {
+            case MOVE:
+                if (board.getCell(row, col) != previousValue)
+                {
+                    return false;
+                }
+                board.rawSetCell(row, col, newValue);
+                moves.record(move);
+                return true;
+            case UNDO:
+                if (!moves.canUndo())
+                {
+                    return false;
+                }
+                if (moves.undo() != move)
+                {
+                    moves.redo();
+                    return false;
+                }
+                board.rawSetCell(row, col, previousValue);
+                return true;
+            case REDO:
+                if (!moves.canRedo())
+                {
+                    return false;
+                }
+                if (moves.redo() != move)
+                {
+                    moves.undo();
+                    return false;
+                }
+                board.rawSetCell(row, col, newValue);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void moveMade(int move)
+    {
+        append(MOVE, move);
+    }
+
+    @Override
+    public void moveUndone(int move)
+    {
+        append(UNDO, move);
+    }
+
+    @Override
+    public void moveRedone(int move)
+    {
+        append(REDO, move);
+    }
+
+    private synchronized void append(byte type, int move)
+    {
+        if (buffer.remaining() < RECORD_SIZE)
+        {
+            flushInBackground();
+        }
+        int start = buffer.position();
+        buffer.put(type).putInt(move).put((byte) 0);
+        crc.reset();
+        crc.update(buffer.array(), start, 6);
+        buffer.putShort((short) crc.getValue());
+        if (!flushScheduled)
+        {
+            flushScheduled = true;
+            flusher.schedule(this::flushInBackground, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // writes out the buffered records and forces them to disk
+    public synchronized void flush() throws IOException
+    {
+        flushScheduled = false;
+        if (buffer.position() > 0)
+        {
+            buffer.flip();
+            try
+            {
+                while (buffer.hasRemaining())
+                {
+                    channel.write(buffer);
+                }
+            }
+            finally
+            {
+                buffer.clear();
+            }
+            channel.force(false);
+        }
+        if (failure != null)
+        {
+            IOException e = failure;
+            failure = null;
+            throw e;
+        }
+    }
+
+    private synchronized void flushInBackground()
+    {
+        try
+        {
+            flush();
+        }
+        catch (IOException e)
+        {
+            failure = e;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            flusher.shutdown();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package sudoku;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded least-recently-used cache of what is known about puzzles, keyed by
+ * CanonicalForm.getKey(). Entries hold the canonical puzzle's solution, as a
+ * BoardState so it takes a byte per cell, and its solution count, each filled in
+ * the first time it is asked for. Safe to share between threads.
+ */
+public class SolutionCache
+{
+    private final int capacity;
+    private final LinkedHashMap<BoardState, Entry> entries;
+    private long hits;
+    private long misses;
+
+    public SolutionCache(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.capacity = capacity;
+        // access order, so the eldest entry is the least recently used one
+        entries = new LinkedHashMap<BoardState, Entry>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BoardState, Entry> eldest)
+            {
+                return size() > SolutionCache.this.capacity;
+            }
+        };
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    // the canonical solution, or null if it isn't known yet; check isSolved() first
+    // to tell that apart from a puzzle that has none
+    synchronized BoardState getSolution(BoardState key)
+    {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.solved)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.solution;
+    }
+
+    synchronized boolean isSolved(BoardState key)
+    {
+        Entry entry = entries.get(key);
+        return entry != null && entry.solved;
+    }
+
+    synchronized void putSolution(BoardState key, BoardState solution)
+    {
+        Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+        entry.solved = true;
+        entry.solution = solution;
+    }
+
+    // the solution count with the given limit, or -1 if the cached count can't tell
+    synchronized int getCount(BoardState key, int limit)
+    {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.count >= 0)
+        {
+            // a count below the limit it was made with is exact; otherwise it is only a lower bound
+            if (entry.count < entry.countLimit || entry.count >= limit)
+            {
+                hits++;
+                return Math.min(entry.count, limit);
+            }
+        }
+        misses++;
+        return -1;
+    }
+
+    synchronized void putCount(BoardState key, int count, int limit)
+    {
+        Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+        if (entry.count < 0 || limit > entry.countLimit)
+        {
+            entry.count = count;
+            entry.countLimit = limit;
+        }
+    }
+
+    private static class Entry
+    {
+        private boolean solved;
+        private BoardState solution;
+        private int count = -1;
+        private int countLimit;
+    }
+}
@@ -0,0 +1,20 @@
+package sudoku;
+
+/**
+ * How many solutions a board has, as far as uniqueness is concerned.
+ */
+public enum SolutionCount
+{
+    NONE,
+    UNIQUE,
+    MULTIPLE;
+
+    public static SolutionCount of(int numSolutions)
+    {
+        if (numSolutions == 0)
+        {
+            return NONE;
+        }
+        return numSolutions == 1 ? UNIQUE : MULTIPLE;
+    }
+}
@@ -0,0 +1,45 @@
+package sudoku;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event for each solve, count or generation run by a Board, with
+ * the run's SolverStats. Recorded with e.g. -XX:StartFlightRecording; when recording
+ * is off, begin() and commit() cost next to nothing.
+ */
+@Name("sudoku.Solve")
+@Label("Sudoku Solve")
+@Category("Sudoku")
+@Description("A solve, solution count or puzzle generation")
+final class SolveEvent extends Event
+{
+    @Label("Operation")
+    String operation;
+
+    @Label("Solver")
+    String solver;
+
+    @Label("Board Size")
+    int size;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Backtracks")
+    long backtracks;
+
+    @Label("Max Depth")
+    int maxDepth;
+
+    @Label("Propagations")
+    long propagations;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
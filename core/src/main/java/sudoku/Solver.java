@@ -0,0 +1,36 @@
+package sudoku;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A search engine behind Board.solve(), Board.getSolvable() and Board.numSolutions().
+ * Implementations must not modify the board they are given.
+ */
+public interface Solver
+{
+    // returns a solved copy of the board, or null if it has no solution
+    Board solve(Board board);
+
+    // counts solutions, but stops searching as soon as limit of them have been found
+    int countSolutions(Board board, int limit);
+
+    // like solve(), but also adds the search's counters to stats; solvers that don't count just solve
+    default Board solve(Board board, SolverStats stats)
+    {
+        return solve(board);
+    }
+
+    default int countSolutions(Board board, int limit, SolverStats stats)
+    {
+        return countSolutions(board, limit);
+    }
+
+    // called at every search node, so a search can be stopped by interrupting its thread
+    static void checkCancelled()
+    {
+        if (Thread.currentThread().isInterrupted())
+        {
+            throw new CancellationException("Search was cancelled");
+        }
+    }
+}
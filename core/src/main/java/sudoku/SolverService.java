@@ -0,0 +1,160 @@
+package sudoku;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs board searches off the calling thread. Every job works on its own copy of the
+ * board, can be cancelled, and is cancelled automatically once its timeout runs out.
+ * Cancelling interrupts the worker, and the solvers check for that as they search.
+ * Results are handed to the callback executor (Platform::runLater in the UI), so
+ * anything chained on a job's result runs there.
+ */
+public class SolverService
+{
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final Executor callbackExecutor;
+
+    public SolverService(Executor callbackExecutor)
+    {
+        this(callbackExecutor, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public SolverService(Executor callbackExecutor, int threads)
+    {
+        this.callbackExecutor = callbackExecutor;
+        AtomicInteger workerCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "solver-" + workerCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "solver-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The result is null if the board has no solution. The three searches below start
+     * from what the board already remembers (see Board.findSolution()), and whatever
+     * they find is remembered by the board in turn, unless it has changed meanwhile.
+     */
+    public Job<Board> solve(Board board, Duration timeout)
+    {
+        Board copy = new Board(board);
+        return submit(copy::findSolution, () -> board.rememberFrom(copy), timeout);
+    }
+
+    public Job<Boolean> checkSolvable(Board board, Duration timeout)
+    {
+        Board copy = new Board(board);
+        return submit(copy::getSolvable, () -> board.rememberFrom(copy), timeout);
+    }
+
+    public Job<Integer> countSolutions(Board board, int limit, Duration timeout)
+    {
+        Board copy = new Board(board);
+        return submit(() -> copy.numSolutions(limit), () -> board.rememberFrom(copy), timeout);
+    }
+
+    public <T> Job<T> submit(Callable<T> work, Duration timeout)
+    {
+        return submit(work, null, timeout);
+    }
+
+    // remember runs on the callback executor once the work is done, before anything chained on the result
+    private <T> Job<T> submit(Callable<T> work, Runnable remember, Duration timeout)
+    {
+        Job<T> job = new Job<>();
+        // the task is published to the job before it can start, so a cancel or timeout always has something to interrupt
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            if (job.stopped)
+            {
+                return;
+            }
+            try
+            {
+                T value = work.call();
+                callbackExecutor.execute(() -> {
+                    if (remember != null)
+                    {
+                        remember.run();
+                    }
+                    job.result.complete(value);
+                });
+            }
+            catch (Throwable e)
+            {
+                // a cancelled job is completed by cancel() or the timeout itself
+                if (!(e instanceof CancellationException))
+                {
+                    callbackExecutor.execute(() -> job.result.completeExceptionally(e));
+                }
+            }
+            finally
+            {
+                job.timeout.cancel(false);
+            }
+        }, null);
+        job.task = task;
+        job.timeout = timer.schedule(() -> job.stop(new TimeoutException("Gave up after " + timeout.toMillis() + "ms")),
+            timeout.toMillis(), TimeUnit.MILLISECONDS);
+        executor.execute(task);
+        return job;
+    }
+
+    public void shutdown()
+    {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    public class Job<T>
+    {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile Future<?> task;
+        private volatile ScheduledFuture<?> timeout;
+        private volatile boolean stopped = false;
+
+        private Job()
+        {
+        }
+
+        // completes with the value, or with a CancellationException or TimeoutException
+        public CompletableFuture<T> result()
+        {
+            return result;
+        }
+
+        public void cancel()
+        {
+            stop(new CancellationException("Cancelled"));
+        }
+
+        private void stop(Exception reason)
+        {
+            stopped = true;
+            Future<?> running = task;
+            if (running != null)
+            {
+                running.cancel(true);
+            }
+            callbackExecutor.execute(() -> result.completeExceptionally(reason));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package sudoku;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * What one solve, count or generation cost: search nodes visited, dead ends backed
+ * out of, the deepest the search went, values placed or columns covered by
+ * propagation, the wall time and the bytes allocated. Solvers add their counters
+ * through Solver.solve(Board, SolverStats) and Solver.countSolutions(Board, int,
+ * SolverStats), and Board keeps the stats of its last run (see Board.getLastStats()).
+ *
+ * Allocations are the calling thread's only, so work done on a ParallelSolver's pool
+ * doesn't show up there; its nodes and backtracks do. They are -1 on JVMs that can't
+ * measure them.
+ */
+public final class SolverStats
+{
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private long nodes;
+    private long backtracks;
+    private int maxDepth;
+    private long propagations;
+    private long wallNanos;
+    private long allocatedBytes = -1;
+
+    private long startNanos;
+    private long startAllocated;
+
+    public SolverStats()
+    {
+    }
+
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    public long getBacktracks()
+    {
+        return backtracks;
+    }
+
+    public int getMaxDepth()
+    {
+        return maxDepth;
+    }
+
+    public long getPropagations()
+    {
+        return propagations;
+    }
+
+    public long getWallNanos()
+    {
+        return wallNanos;
+    }
+
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+    // adds a finished search's counters; synchronized since parallel searches add from several threads
+    synchronized void add(long nodes, long backtracks, int maxDepth, long propagations)
+    {
+        this.nodes += nodes;
+        this.backtracks += backtracks;
+        this.maxDepth = Math.max(this.maxDepth, maxDepth);
+        this.propagations += propagations;
+    }
+
+    void start()
+    {
+        startAllocated = threadAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    void stop()
+    {
+        wallNanos = System.nanoTime() - startNanos;
+        long allocated = threadAllocatedBytes();
+        allocatedBytes = allocated < 0 || startAllocated < 0 ? -1 : allocated - startAllocated;
+    }
+
+    private static long threadAllocatedBytes()
+    {
+        if (THREADS instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled())
+            {
+                return threads.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+
+    // e.g. "1234 nodes, 56 backtracks, depth 12, 4321 propagations, 1.25ms, 48KB"
+    @Override
+    public synchronized String toString()
+    {
+        String allocated = allocatedBytes < 0 ? "? allocated" : (allocatedBytes + 1023) / 1024 + "KB";
+        return String.format("%d nodes, %d backtracks, depth %d, %d propagations, %.2fms, %s",
+            nodes, backtracks, maxDepth, propagations, wallNanos / 1e6, allocated);
+    }
+}
@@ -0,0 +1,137 @@
+package sudoku;
+
+/**
+ * One logical step found by StepSolver: either a value that can be placed (the
+ * singles) or candidates that can be removed (everything else). Cells are indices
+ * row * size + col.
+ */
+public final class Step
+{
+    private final Technique technique;
+    private final int size;
+    // the cells that make up the pattern, and the values it is about as a candidate mask
+    private final int[] cells;
+    private final int values;
+    private final int placedCell;
+    private final int placedValue;
+    // eliminationMasks[i] are the candidates removed from eliminationCells[i]
+    private final int[] eliminationCells;
+    private final int[] eliminationMasks;
+
+    Step(Technique technique, int size, int[] cells, int values, int placedCell, int placedValue, int[] eliminationCells, int[] eliminationMasks)
+    {
+        this.technique = technique;
+        this.size = size;
+        this.cells = cells;
+        this.values = values;
+        this.placedCell = placedCell;
+        this.placedValue = placedValue;
+        this.eliminationCells = eliminationCells;
+        this.eliminationMasks = eliminationMasks;
+    }
+
+    public Technique getTechnique()
+    {
+        return technique;
+    }
+
+    public int[] getCells()
+    {
+        return cells.clone();
+    }
+
+    public int getValues()
+    {
+        return values;
+    }
+
+    public boolean isPlacement()
+    {
+        return placedCell >= 0;
+    }
+
+    // the cell a single fills, or -1 for an elimination step
+    public int getPlacedCell()
+    {
+        return placedCell;
+    }
+
+    public int getPlacedValue()
+    {
+        return placedValue;
+    }
+
+    public int getEliminationCount()
+    {
+        return eliminationCells.length;
+    }
+
+    public int getEliminationCell(int i)
+    {
+        return eliminationCells[i];
+    }
+
+    public int getEliminationMask(int i)
+    {
+        return eliminationMasks[i];
+    }
+
+    public int getRow(int cell)
+    {
+        return cell / size;
+    }
+
+    public int getCol(int cell)
+    {
+        return cell % size;
+    }
+
+    // e.g. "Naked pair 3 7 in r1c2 r1c6: removes 3 7 from r1c4, 7 from r1c9"
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder(technique.getName());
+        appendValues(sb, values);
+        sb.append(" in");
+        for (int cell : cells)
+        {
+            sb.append(' ');
+            appendCell(sb, cell);
+        }
+        if (isPlacement())
+        {
+            sb.append(": ");
+            appendCell(sb, placedCell);
+            sb.append(" is ").append(Board.symbolOf(placedValue));
+        }
+        else
+        {
+            sb.append(": removes");
+            for (int i = 0; i < eliminationCells.length; i++)
+            {
+                if (i > 0)
+                {
+                    sb.append(',');
+                }
+                appendValues(sb, eliminationMasks[i]);
+                sb.append(" from ");
+                appendCell(sb, eliminationCells[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendValues(StringBuilder sb, int mask)
+    {
+        for (; mask != 0; mask &= mask - 1)
+        {
+            sb.append(' ').append(Board.symbolOf(Candidates.first(mask)));
+        }
+    }
+
+    // rows and columns are counted from 1 here, the way players name them
+    private void appendCell(StringBuilder sb, int cell)
+    {
+        sb.append('r').append(getRow(cell) + 1).append('c').append(getCol(cell) + 1);
+    }
+}
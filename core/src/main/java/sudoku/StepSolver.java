@@ -0,0 +1,593 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Solves a board the way a person would, one logical step at a time, so it can give
+ * real hints and grade how hard a puzzle is (see Technique and Difficulty).
+ *
+ * It keeps its own grid of candidates, built once from the board and then updated as
+ * steps are applied: placing a value removes it from the peers, and every cell that
+ * drops to one candidate is queued, so naked singles are found without a scan. The
+ * other techniques are looked for unit by unit over the candidate masks, easiest first.
+ *
+ * Each StepSolver works on its own copy of the board, so separate instances can rate
+ * puzzles on separate threads.
+ */
+public class StepSolver
+{
+    private final Units geometry;
+    private final int size;
+    private final int[] cells;
+    private final int[] candidates;
+    private int empty;
+    // cells that went down to one candidate, newest last; stale entries are skipped
+    private final int[] singles;
+    private int singlesSize;
+    // set once a clash or a cell without candidates shows up, after which there are no steps
+    private boolean broken;
+
+    // the eliminations of the step being built
+    private final int[] eliminationCells;
+    private final int[] eliminationMasks;
+    private int eliminationCount;
+
+    public StepSolver(Board board)
+    {
+        geometry = Units.of(board);
+        size = geometry.size;
+        cells = new int[geometry.cells];
+        candidates = new int[geometry.cells];
+        singles = new int[geometry.cells];
+        eliminationCells = new int[geometry.cells];
+        eliminationMasks = new int[geometry.cells];
+        Arrays.fill(candidates, geometry.all);
+        empty = geometry.cells;
+        for (int i = 0; i < cells.length; i++)
+        {
+            int value = board.getCell(i / size, i % size);
+            if (value != 0)
+            {
+                if (!Candidates.contains(candidates[i], value))
+                {
+                    broken = true;
+                }
+                place(i, value);
+            }
+        }
+    }
+
+    /**
+     * Grades a puzzle by solving it step by step. Only meant for puzzles with a single
+     * solution; anything the techniques can't finish is EXTREME.
+     */
+    public static Difficulty rate(Board board)
+    {
+        return new StepSolver(board).solve();
+    }
+
+    public boolean isSolved()
+    {
+        return empty == 0 && !broken;
+    }
+
+    public int getCell(int row, int col)
+    {
+        return cells[row * size + col];
+    }
+
+    // the candidates left for an empty cell, as a mask (see Candidates), or 0 for a filled one
+    public int getCandidates(int row, int col)
+    {
+        return candidates[row * size + col];
+    }
+
+    // applies steps until the board is solved or no technique helps, returning the grade
+    public Difficulty solve()
+    {
+        Difficulty hardest = Difficulty.EASY;
+        for (Step step = nextStep(); step != null; step = nextStep())
+        {
+            // rating jobs are cancelled by interrupting them, like the searches
+            Solver.checkCancelled();
+            if (step.getTechnique().getDifficulty().compareTo(hardest) > 0)
+            {
+                hardest = step.getTechnique().getDifficulty();
+            }
+            apply(step);
+        }
+        return isSolved() ? hardest : Difficulty.EXTREME;
+    }
+
+    /**
+     * Finds the easiest step that makes progress, without applying it. Returns null if
+     * the board is solved, stuck for these techniques, or contradicts itself.
+     */
+    public Step nextStep()
+    {
+        if (broken || empty == 0)
+        {
+            return null;
+        }
+        Step step = nakedSingle();
+        if (step == null && !broken)
+        {
+            step = hiddenSingle();
+        }
+        if (step == null && !broken)
+        {
+            step = pointing();
+        }
+        if (step == null && !broken)
+        {
+            step = boxLine();
+        }
+        if (step == null && !broken)
+        {
+            step = nakedSubset(2, Technique.NAKED_PAIR);
+        }
+        if (step == null && !broken)
+        {
+            step = hiddenSubset(2, Technique.HIDDEN_PAIR);
+        }
+        if (step == null && !broken)
+        {
+            step = nakedSubset(3, Technique.NAKED_TRIPLE);
+        }
+        if (step == null && !broken)
+        {
+            step = hiddenSubset(3, Technique.HIDDEN_TRIPLE);
+        }
+        if (step == null && !broken)
+        {
+            step = fish(2, Technique.X_WING);
+        }
+        if (step == null && !broken)
+        {
+            step = fish(3, Technique.SWORDFISH);
+        }
+        return broken ? null : step;
+    }
+
+    public void apply(Step step)
+    {
+        if (step.isPlacement())
+        {
+            place(step.getPlacedCell(), step.getPlacedValue());
+            return;
+        }
+        for (int i = 0; i < step.getEliminationCount(); i++)
+        {
+            eliminate(step.getEliminationCell(i), step.getEliminationMask(i));
+        }
+    }
+
+    private void place(int cell, int value)
+    {
+        int bit = Candidates.bit(value);
+        cells[cell] = value;
+        candidates[cell] = 0;
+        empty--;
+        for (int peer : geometry.peers[cell])
+        {
+            if (cells[peer] == value)
+            {
+                broken = true;
+            }
+            eliminate(peer, bit);
+        }
+    }
+
+    private void eliminate(int cell, int mask)
+    {
+        if (cells[cell] != 0 || (candidates[cell] & mask) == 0)
+        {
+            return;
+        }
+        candidates[cell] &= ~mask;
+        int left = Candidates.count(candidates[cell]);
+        if (left == 1)
+        {
+            singles[singlesSize++] = cell;
+        }
+        else if (left == 0)
+        {
+            broken = true;
+        }
+    }
+
+    private Step nakedSingle()
+    {
+        while (singlesSize > 0)
+        {
+            int cell = singles[singlesSize - 1];
+            if (cells[cell] == 0)
+            {
+                // left on the queue, it is dropped once the step has been applied
+                return placement(Technique.NAKED_SINGLE, new int[] {cell}, cell, Candidates.first(candidates[cell]));
+            }
+            singlesSize--;
+        }
+        return null;
+    }
+
+    private Step hiddenSingle()
+    {
+        for (int[] unit : geometry.units)
+        {
+            int once = 0;
+            int twice = 0;
+            int placed = 0;
+            for (int cell : unit)
+            {
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+                if (cells[cell] != 0)
+                {
+                    placed |= Candidates.bit(cells[cell]);
+                }
+            }
+            if ((geometry.all & ~placed & ~once) != 0)
+            {
+                // a value with nowhere left to go
+                broken = true;
+                return null;
+            }
+            int hidden = once & ~twice;
+            if (hidden != 0)
+            {
+                int value = Candidates.first(hidden);
+                for (int cell : unit)
+                {
+                    if (Candidates.contains(candidates[cell], value))
+                    {
+                        return placement(Technique.HIDDEN_SINGLE, unit.clone(), cell, value);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // a value that only fits one row or column of a box can't go anywhere else in that line
+    private Step pointing()
+    {
+        for (int b = 0; b < size; b++)
+        {
+            int[] box = geometry.units[2 * size + b];
+            for (int value = 1; value <= size; value++)
+            {
+                int rows = 0;
+                int cols = 0;
+                for (int cell : box)
+                {
+                    if (Candidates.contains(candidates[cell], value))
+                    {
+                        rows |= 1 << (cell / size);
+                        cols |= 1 << (cell % size);
+                    }
+                }
+                int lines = Candidates.count(rows) == 1 ? Integer.numberOfTrailingZeros(rows)
+                    : Candidates.count(cols) == 1 ? size + Integer.numberOfTrailingZeros(cols) : -1;
+                if (lines < 0)
+                {
+                    continue;
+                }
+                eliminationCount = 0;
+                for (int cell : geometry.units[lines])
+                {
+                    if (geometry.cellUnits[cell][2] != 2 * size + b)
+                    {
+                        addElimination(cell, Candidates.bit(value));
+                    }
+                }
+                Step step = eliminationStep(Technique.POINTING, cellsWith(box, value), Candidates.bit(value));
+                if (step != null)
+                {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    // a value that only fits one box within a row or column can't go anywhere else in that box
+    private Step boxLine()
+    {
+        for (int u = 0; u < 2 * size; u++)
+        {
+            int[] line = geometry.units[u];
+            for (int value = 1; value <= size; value++)
+            {
+                int boxes = 0;
+                for (int cell : line)
+                {
+                    if (Candidates.contains(candidates[cell], value))
+                    {
+                        boxes |= 1 << (geometry.cellUnits[cell][2] - 2 * size);
+                    }
+                }
+                if (Candidates.count(boxes) != 1)
+                {
+                    continue;
+                }
+                int box = 2 * size + Integer.numberOfTrailingZeros(boxes);
+                eliminationCount = 0;
+                for (int cell : geometry.units[box])
+                {
+                    if (geometry.cellUnits[cell][u < size ? 0 : 1] != u)
+                    {
+                        addElimination(cell, Candidates.bit(value));
+                    }
+                }
+                Step step = eliminationStep(Technique.BOX_LINE, cellsWith(line, value), Candidates.bit(value));
+                if (step != null)
+                {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    // k cells of a unit holding only k values between them: no other cell of the unit can have those values
+    private Step nakedSubset(int k, Technique technique)
+    {
+        int[] masks = new int[size];
+        int[] positions = new int[size];
+        int[] chosen = new int[k];
+        for (int[] unit : geometry.units)
+        {
+            int n = 0;
+            for (int i = 0; i < size; i++)
+            {
+                int count = Candidates.count(candidates[unit[i]]);
+                if (count >= 2 && count <= k)
+                {
+                    masks[n] = candidates[unit[i]];
+                    positions[n++] = i;
+                }
+            }
+            Step step = findSubset(masks, n, k, 0, 0, 0, chosen, (union, found) -> {
+                int inSubset = 0;
+                for (int c : found)
+                {
+                    inSubset |= 1 << positions[c];
+                }
+                eliminationCount = 0;
+                for (int i = 0; i < size; i++)
+                {
+                    if ((inSubset & 1 << i) == 0)
+                    {
+                        addElimination(unit[i], union);
+                    }
+                }
+                return eliminationStep(technique, subsetCells(unit, inSubset), union);
+            });
+            if (step != null)
+            {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    // k values of a unit that only fit k cells between them: those cells can't hold anything else
+    private Step hiddenSubset(int k, Technique technique)
+    {
+        int[] masks = new int[size];
+        int[] values = new int[size];
+        int[] chosen = new int[k];
+        for (int[] unit : geometry.units)
+        {
+            int n = 0;
+            for (int value = 1; value <= size; value++)
+            {
+                int places = 0;
+                for (int i = 0; i < size; i++)
+                {
+                    if (Candidates.contains(candidates[unit[i]], value))
+                    {
+                        places |= 1 << i;
+                    }
+                }
+                int count = Candidates.count(places);
+                if (count >= 2 && count <= k)
+                {
+                    masks[n] = places;
+                    values[n++] = value;
+                }
+            }
+            Step step = findSubset(masks, n, k, 0, 0, 0, chosen, (places, found) -> {
+                int subsetValues = 0;
+                for (int c : found)
+                {
+                    subsetValues |= Candidates.bit(values[c]);
+                }
+                eliminationCount = 0;
+                for (int i = 0; i < size; i++)
+                {
+                    if ((places & 1 << i) != 0)
+                    {
+                        addElimination(unit[i], ~subsetValues);
+                    }
+                }
+                return eliminationStep(technique, subsetCells(unit, places), subsetValues);
+            });
+            if (step != null)
+            {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * X-Wing (k = 2) and Swordfish (k = 3): if a value only fits k columns across k rows,
+     * each of those columns gets it in one of those rows, so the rest of the columns can't
+     * have it. The same holds with rows and columns swapped.
+     */
+    private Step fish(int k, Technique technique)
+    {
+        int[] masks = new int[size];
+        int[] lines = new int[size];
+        int[] chosen = new int[k];
+        for (int value = 1; value <= size; value++)
+        {
+            int bit = Candidates.bit(value);
+            for (int base = 0; base < 2; base++)
+            {
+                // base 0 takes rows as the base lines and columns as the cover, base 1 the reverse
+                int baseStart = base * size;
+                int coverStart = (1 - base) * size;
+                int n = 0;
+                for (int line = 0; line < size; line++)
+                {
+                    int places = 0;
+                    int[] unit = geometry.units[baseStart + line];
+                    for (int i = 0; i < size; i++)
+                    {
+                        if ((candidates[unit[i]] & bit) != 0)
+                        {
+                            places |= 1 << i;
+                        }
+                    }
+                    int count = Candidates.count(places);
+                    if (count >= 2 && count <= k)
+                    {
+                        masks[n] = places;
+                        lines[n++] = line;
+                    }
+                }
+                Step step = findSubset(masks, n, k, 0, 0, 0, chosen, (covers, found) -> {
+                    int baseLines = 0;
+                    for (int c : found)
+                    {
+                        baseLines |= 1 << lines[c];
+                    }
+                    eliminationCount = 0;
+                    int patternCells = 0;
+                    for (int cover = covers; cover != 0; cover &= cover - 1)
+                    {
+                        int[] unit = geometry.units[coverStart + Integer.numberOfTrailingZeros(cover)];
+                        for (int i = 0; i < size; i++)
+                        {
+                            if ((baseLines & 1 << i) == 0)
+                            {
+                                addElimination(unit[i], bit);
+                            }
+                            else if ((candidates[unit[i]] & bit) != 0)
+                            {
+                                patternCells++;
+                            }
+                        }
+                    }
+                    if (eliminationCount == 0)
+                    {
+                        return null;
+                    }
+                    int[] pattern = new int[patternCells];
+                    int p = 0;
+                    for (int cover = covers; cover != 0; cover &= cover - 1)
+                    {
+                        int[] unit = geometry.units[coverStart + Integer.numberOfTrailingZeros(cover)];
+                        for (int i = 0; i < size; i++)
+                        {
+                            if ((baseLines & 1 << i) != 0 && (candidates[unit[i]] & bit) != 0)
+                            {
+                                pattern[p++] = unit[i];
+                            }
+                        }
+                    }
+                    return eliminationStep(technique, pattern, bit);
+                });
+                if (step != null)
+                {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    // called with the union of the chosen masks and the chosen indices, returns a step or null to keep looking
+    private interface SubsetCheck
+    {
+        Step check(int union, int[] chosen);
+    }
+
+    // tries every choice of k of the n masks whose union has exactly k bits
+    private Step findSubset(int[] masks, int n, int k, int start, int depth, int union, int[] chosen, SubsetCheck check)
+    {
+        if (depth == k)
+        {
+            return Candidates.count(union) == k ? check.check(union, chosen) : null;
+        }
+        for (int i = start; i <= n - (k - depth); i++)
+        {
+            int next = union | masks[i];
+            if (Candidates.count(next) > k)
+            {
+                continue;
+            }
+            chosen[depth] = i;
+            Step step = findSubset(masks, n, k, i + 1, depth + 1, next, chosen, check);
+            if (step != null)
+            {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    private void addElimination(int cell, int mask)
+    {
+        int removed = candidates[cell] & mask;
+        if (cells[cell] == 0 && removed != 0)
+        {
+            eliminationCells[eliminationCount] = cell;
+            eliminationMasks[eliminationCount++] = removed;
+        }
+    }
+
+    private Step placement(Technique technique, int[] pattern, int cell, int value)
+    {
+        return new Step(technique, size, pattern, Candidates.bit(value), cell, value, new int[0], new int[0]);
+    }
+
+    // the step for the eliminations collected so far, or null if there are none
+    private Step eliminationStep(Technique technique, int[] pattern, int values)
+    {
+        if (eliminationCount == 0)
+        {
+            return null;
+        }
+        return new Step(technique, size, pattern, values, -1, 0,
+            Arrays.copyOf(eliminationCells, eliminationCount), Arrays.copyOf(eliminationMasks, eliminationCount));
+    }
+
+    // the cells of a unit that still have value as a candidate
+    private int[] cellsWith(int[] unit, int value)
+    {
+        int places = 0;
+        for (int i = 0; i < unit.length; i++)
+        {
+            if (Candidates.contains(candidates[unit[i]], value))
+            {
+                places |= 1 << i;
+            }
+        }
+        return subsetCells(unit, places);
+    }
+
+    private static int[] subsetCells(int[] unit, int positions)
+    {
+        int[] result = new int[Integer.bitCount(positions)];
+        int n = 0;
+        for (int p = positions; p != 0; p &= p - 1)
+        {
+            result[n++] = unit[Integer.numberOfTrailingZeros(p)];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package sudoku;
+
+/**
+ * The symmetry of the pattern of givens of a puzzle, the way puzzle makers lay them
+ * out. Only which cells are given counts, not their values. A pattern with several
+ * symmetries gets the strongest one, in the order below from weakest to strongest.
+ */
+public enum Symmetry
+{
+    NONE,
+    // mirrored across either diagonal
+    DIAGONAL,
+    // mirrored left to right or top to bottom
+    MIRROR,
+    // the same after half a turn
+    ROTATIONAL_180,
+    // the same after a quarter turn
+    ROTATIONAL_90;
+
+    public String getName()
+    {
+        return name().toLowerCase().replace('_', ' ');
+    }
+
+    public static Symmetry of(Board puzzle)
+    {
+        int size = puzzle.getSize();
+        boolean[] givens = new boolean[size * size];
+        for (int r = 0; r < size; r++)
+        {
+            for (int c = 0; c < size; c++)
+            {
+                givens[r * size + c] = puzzle.hasValue(r, c);
+            }
+        }
+        return of(givens, size);
+    }
+
+    // givens holds size * size cells, row by row
+    static Symmetry of(boolean[] givens, int size)
+    {
+        boolean quarter = true;
+        boolean half = true;
+        boolean leftRight = true;
+        boolean topBottom = true;
+        boolean diagonal = true;
+        boolean antiDiagonal = true;
+        int last = size - 1;
+        for (int r = 0; r < size; r++)
+        {
+            for (int c = 0; c < size; c++)
+            {
+                boolean given = givens[r * size + c];
+                quarter &= given == givens[c * size + last - r];
+                half &= given == givens[(last - r) * size + last - c];
+                leftRight &= given == givens[r * size + last - c];
+                topBottom &= given == givens[(last - r) * size + c];
+                diagonal &= given == givens[c * size + r];
+                antiDiagonal &= given == givens[(last - c) * size + last - r];
+            }
+        }
+        if (quarter)
+        {
+            return ROTATIONAL_90;
+        }
+        if (half)
+        {
+            return ROTATIONAL_180;
+        }
+        if (leftRight || topBottom)
+        {
+            return MIRROR;
+        }
+        if (diagonal || antiDiagonal)
+        {
+            return DIAGONAL;
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,38 @@
+package sudoku;
+
+/**
+ * The solving techniques StepSolver knows, easiest first. StepSolver always looks for
+ * a step in this order, so a puzzle is only graded as hard as it has to be.
+ */
+public enum Technique
+{
+    NAKED_SINGLE("Naked single", Difficulty.EASY),
+    HIDDEN_SINGLE("Hidden single", Difficulty.EASY),
+    POINTING("Pointing", Difficulty.MEDIUM),
+    BOX_LINE("Box/line reduction", Difficulty.MEDIUM),
+    NAKED_PAIR("Naked pair", Difficulty.MEDIUM),
+    HIDDEN_PAIR("Hidden pair", Difficulty.MEDIUM),
+    NAKED_TRIPLE("Naked triple", Difficulty.HARD),
+    HIDDEN_TRIPLE("Hidden triple", Difficulty.HARD),
+    X_WING("X-Wing", Difficulty.EXPERT),
+    SWORDFISH("Swordfish", Difficulty.EXPERT);
+
+    private final String name;
+    private final Difficulty difficulty;
+
+    Technique(String name, Difficulty difficulty)
+    {
+        this.name = name;
+        this.difficulty = difficulty;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public Difficulty getDifficulty()
+    {
+        return difficulty;
+    }
+}
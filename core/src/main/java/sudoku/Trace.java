@@ -0,0 +1,20 @@
+package sudoku;
+
+/**
+ * Debug output for the moves and the generator, off unless the JVM is started with
+ * -Dsudoku.trace=true. ENABLED is a constant, so guarding a call with
+ * if (Trace.ENABLED) lets the JIT drop it, message building included, when tracing is off.
+ */
+public final class Trace
+{
+    public static final boolean ENABLED = Boolean.getBoolean("sudoku.trace");
+
+    private Trace()
+    {
+    }
+
+    public static void log(String message)
+    {
+        System.out.println(message);
+    }
+}
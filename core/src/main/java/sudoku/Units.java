@@ -0,0 +1,78 @@
+package sudoku;
+
+/**
+ * The rows, columns and boxes of a board size as lists of cell indices, where cell
+ * i is (i / size, i % size). Built once per box size and shared by the solvers.
+ */
+final class Units
+{
+    private static final Units[] BY_BOX_SIZE = new Units[Board.MAX_BOX_SIZE + 1];
+
+    static
+    {
+        for (int boxSize = Board.MIN_BOX_SIZE; boxSize <= Board.MAX_BOX_SIZE; boxSize++)
+        {
+            BY_BOX_SIZE[boxSize] = new Units(boxSize);
+        }
+    }
+
+    final int boxSize;
+    final int size;
+    final int cells;
+    // every value, as a candidate mask
+    final int all;
+    // units 0 to size - 1 are the rows, then come the columns, then the boxes
+    final int[][] units;
+    // the row, column and box unit of each cell
+    final int[][] cellUnits;
+    // the other cells sharing a unit with each cell, each listed once
+    final int[][] peers;
+
+    private Units(int boxSize)
+    {
+        this.boxSize = boxSize;
+        size = boxSize * boxSize;
+        cells = size * size;
+        all = Candidates.all(size);
+        units = new int[3 * size][size];
+        cellUnits = new int[cells][3];
+        for (int i = 0; i < cells; i++)
+        {
+            int r = i / size;
+            int c = i % size;
+            int b = r / boxSize * boxSize + c / boxSize;
+            int k = r % boxSize * boxSize + c % boxSize;
+            units[r][c] = i;
+            units[size + c][r] = i;
+            units[2 * size + b][k] = i;
+            cellUnits[i][0] = r;
+            cellUnits[i][1] = size + c;
+            cellUnits[i][2] = 2 * size + b;
+        }
+        peers = new int[cells][];
+        for (int i = 0; i < cells; i++)
+        {
+            // 2 * (size - 1) in the row and column, plus the box cells in neither
+            int[] list = new int[3 * size - 2 * boxSize - 1];
+            int n = 0;
+            for (int j = 0; j < cells; j++)
+            {
+                if (j != i && (j / size == i / size || j % size == i % size || cellUnits[j][2] == cellUnits[i][2]))
+                {
+                    list[n++] = j;
+                }
+            }
+            peers[i] = list;
+        }
+    }
+
+    static Units of(Board board)
+    {
+        return BY_BOX_SIZE[board.getBoxSize()];
+    }
+
+    static Units of(int boxSize)
+    {
+        return BY_BOX_SIZE[boxSize];
+    }
+}
@@ -0,0 +1,134 @@
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The remembered solution and count survive moves that can't change them, and are
+ * searched for again after any other move.
+ */
+class BoardMemoTest
+{
+    private static final String PUZZLE = "2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...3";
+
+    // counts the searches that reach the engine
+    private static class CountingSolver implements Solver
+    {
+        private final Solver delegate = new BacktrackingSolver();
+        int solves;
+        int counts;
+
+        @Override
+        public Board solve(Board board)
+        {
+            solves++;
+            return delegate.solve(board);
+        }
+
+        @Override
+        public int countSolutions(Board board, int limit)
+        {
+            counts++;
+            return delegate.countSolutions(board, limit);
+        }
+    }
+
+    private static int[] firstEmptyCell(Board board)
+    {
+        for (int r = 0; r < board.getSize(); r++)
+        {
+            for (int c = 0; c < board.getSize(); c++)
+            {
+                if (!board.hasValue(r, c))
+                {
+                    return new int[] {r, c};
+                }
+            }
+        }
+        throw new IllegalStateException("Board is full");
+    }
+
+    @Test
+    void solutionSurvivesMatchingMoves()
+    {
+        CountingSolver solver = new CountingSolver();
+        Board board = Board.fromLine(PUZZLE);
+        board.setSolver(solver);
+        Board solution = board.findSolution();
+        assertEquals(1, solver.solves);
+
+        int[] cell = firstEmptyCell(board);
+        board.makeMove(cell[0], cell[1], solution.getCell(cell[0], cell[1]));
+        assertEquals(solution.toLine(), board.findSolution().toLine());
+        board.makeMove(cell[0], cell[1], 0);
+        assertNotNull(board.findSolution());
+        assertEquals(1, solver.solves);
+        assertEquals(solution.getCell(cell[0], cell[1]), board.getKnownSolutionValue(cell[0], cell[1]));
+    }
+
+    @Test
+    void solutionIsForgottenAfterAWrongMove()
+    {
+        CountingSolver solver = new CountingSolver();
+        Board board = Board.fromLine(PUZZLE);
+        board.setSolver(solver);
+        Board solution = board.findSolution();
+
+        // a legal value that isn't the solution's leaves a puzzle with none
+        for (int r = 0; r < 9; r++)
+        {
+            for (int c = 0; c < 9; c++)
+            {
+                if (board.hasValue(r, c))
+                {
+                    continue;
+                }
+                for (int value = 1; value <= 9; value++)
+                {
+                    if (value != solution.getCell(r, c) && board.isLegal(r, c, value))
+                    {
+                        long version = board.getVersion();
+                        board.makeMove(r, c, value);
+                        assertNotEquals(version, board.getVersion());
+                        assertEquals(0, board.getKnownSolutionValue(r, c));
+                        assertNull(board.findSolution());
+                        assertEquals(2, solver.solves);
+                        return;
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No wrong but legal move found");
+    }
+
+    @Test
+    void countIsKeptOrRecounted()
+    {
+        CountingSolver solver = new CountingSolver();
+        Board board = Board.fromLine(PUZZLE);
+        board.setSolver(solver);
+        assertEquals(1, board.numSolutions());
+        assertEquals(1, solver.counts);
+
+        // filling a cell with its solution value keeps a unique puzzle unique
+        Board solution = board.findSolution();
+        int[] cell = firstEmptyCell(board);
+        board.makeMove(cell[0], cell[1], solution.getCell(cell[0], cell[1]));
+        assertEquals(1, board.numSolutions());
+        assertEquals(1, solver.counts);
+
+        // emptying a given can only add solutions, so the count is only a lower bound now
+        int given = 0;
+        while (!board.hasValue(given / 9, given % 9) || given == cell[0] * 9 + cell[1])
+        {
+            given++;
+        }
+        board.rawSetCell(given / 9, given % 9, 0);
+        assertEquals(SolutionCount.of(solver.delegate.countSolutions(board, 2)), board.getSolutionCount());
+        assertEquals(2, solver.counts);
+    }
+}
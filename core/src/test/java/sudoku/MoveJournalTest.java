@@ -0,0 +1,87 @@
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MoveJournalTest
+{
+    private static final String PUZZLE = "2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...3";
+
+    @Test
+    void undoAndRedoRoundTrip()
+    {
+        Board board = Board.fromLine(PUZZLE);
+        Board solution = board.findSolution();
+        String start = board.toLine();
+        int moves = 0;
+        for (int i = 0; i < 81 && moves < 10; i++)
+        {
+            if (!board.hasValue(i / 9, i % 9))
+            {
+                board.makeMove(i / 9, i % 9, solution.getCell(i / 9, i % 9));
+                moves++;
+            }
+        }
+        String end = board.toLine();
+
+        for (int i = 0; i < moves; i++)
+        {
+            assertTrue(board.canUndo());
+            board.undo();
+        }
+        assertFalse(board.canUndo());
+        assertEquals(start, board.toLine());
+
+        for (int i = 0; i < moves; i++)
+        {
+            assertTrue(board.canRedo());
+            board.redo();
+        }
+        assertFalse(board.canRedo());
+        assertEquals(end, board.toLine());
+    }
+
+    @Test
+    void newMoveDropsTheRedoHistory()
+    {
+        MoveJournal journal = new MoveJournal();
+        journal.record(Move.pack(0, 0, 0, 1));
+        journal.record(Move.pack(0, 1, 0, 2));
+        assertEquals(Move.pack(0, 1, 0, 2), journal.undo());
+        assertTrue(journal.canRedo());
+        journal.record(Move.pack(0, 2, 0, 3));
+        assertFalse(journal.canRedo());
+        assertEquals(Move.pack(0, 2, 0, 3), journal.undo());
+        assertEquals(Move.pack(0, 0, 0, 1), journal.undo());
+        assertFalse(journal.canUndo());
+    }
+
+    @Test
+    void capacityKeepsTheNewestMoves()
+    {
+        MoveJournal journal = new MoveJournal(3);
+        for (int col = 0; col < 5; col++)
+        {
+            journal.record(Move.pack(0, col, 0, col + 1));
+        }
+        assertEquals(3, journal.size());
+        for (int col = 4; col >= 2; col--)
+        {
+            assertEquals(Move.pack(0, col, 0, col + 1), journal.undo());
+        }
+        assertFalse(journal.canUndo());
+    }
+
+    @Test
+    void packedMovesUnpack()
+    {
+        int move = Move.pack(8, 7, 3, 9);
+        assertEquals(8, Move.row(move));
+        assertEquals(7, Move.col(move));
+        assertEquals(3, Move.previousValue(move));
+        assertEquals(9, Move.newValue(move));
+    }
+}
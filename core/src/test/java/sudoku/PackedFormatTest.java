@@ -0,0 +1,87 @@
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PackedFormatTest
+{
+    private static final String[] PUZZLES = {
+        "2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...3",
+        ".......1.4.........2...........5.4.7..8...3....1.9....3..4..2...5.1........8.6...",
+    };
+
+    @TempDir
+    Path dir;
+
+    private Path writeAll(boolean withSolutions, boolean withMetadata) throws IOException
+    {
+        Path file = dir.resolve("puzzles.sdkp");
+        try (PackedPuzzleWriter writer = new PackedPuzzleWriter(file, withSolutions, withMetadata))
+        {
+            for (int i = 0; i < PUZZLES.length; i++)
+            {
+                Board puzzle = Board.fromLine(PUZZLES[i]);
+                writer.write(puzzle, puzzle.findSolution(), i + 1);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    void puzzlesSolutionsAndMetadataRoundTrip() throws IOException
+    {
+        Path file = writeAll(true, true);
+        try (PackedPuzzleReader reader = new PackedPuzzleReader(file))
+        {
+            assertEquals(PUZZLES.length, reader.size());
+            for (int i = 0; i < PUZZLES.length; i++)
+            {
+                Board puzzle = Board.fromLine(PUZZLES[i]);
+                assertEquals(PUZZLES[i], reader.getPuzzle(i).toLine());
+                assertEquals(puzzle.findSolution().toLine(), reader.getSolution(i).toLine());
+                assertEquals(PackedFormat.countClues(puzzle), reader.getClueCount(i));
+                assertEquals(i + 1, reader.getDifficulty(i));
+            }
+        }
+    }
+
+    @Test
+    void puzzlesAloneRoundTrip() throws IOException
+    {
+        Path file = writeAll(false, false);
+        try (PackedPuzzleReader reader = new PackedPuzzleReader(file))
+        {
+            int i = 0;
+            for (Board puzzle : reader)
+            {
+                assertEquals(PUZZLES[i++], puzzle.toLine());
+            }
+            assertEquals(PUZZLES.length, i);
+            assertThrows(IllegalStateException.class, () -> reader.getSolution(0));
+        }
+    }
+
+    @Test
+    void corruptCellIsRejected() throws IOException
+    {
+        Path file = writeAll(false, false);
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw"))
+        {
+            raw.seek(PackedFormat.HEADER_SIZE);
+            raw.write(0xFF);
+        }
+        try (PackedPuzzleReader reader = new PackedPuzzleReader(file))
+        {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> reader.getPuzzle(0));
+            assertEquals("Corrupt packed puzzle: cell (0, 0) holds 15", e.getMessage());
+            assertEquals(PUZZLES[1], reader.getPuzzle(1).toLine());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PuzzleImporterTest
+{
+    private static final String PUZZLE = "2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...3";
+
+    private static PuzzleImporter importer(String text)
+    {
+        return new PuzzleImporter(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static List<String> readAll(String text)
+    {
+        List<String> lines = new ArrayList<>();
+        PuzzleImporter in = importer(text);
+        while (in.hasNext())
+        {
+            lines.add(in.next().toLine());
+        }
+        return lines;
+    }
+
+    @Test
+    void readsOnePuzzlePerLine()
+    {
+        String zeros = PUZZLE.replace('.', '0');
+        assertEquals(List.of(PUZZLE, PUZZLE), readAll(PUZZLE + "\n" + zeros + " 3.2 rated\n"));
+    }
+
+    @Test
+    void readsGridsWithBordersAndComments()
+    {
+        String text = "#A someone\n"
+            + "[Puzzle]\n"
+            + "2 0 0 | 0 8 0 | 3 0 0\n"
+            + "0 6 0 | 0 7 0 | 0 8 4\n"
+            + "0 3 0 | 5 0 0 | 2 0 9\n"
+            + "------+-------+------\n"
+            + "0 0 0 | 1 0 5 | 4 0 8\n"
+            + "0 0 0 | 0 0 0 | 0 0 0\n"
+            + "4 0 2 | 7 0 6 | 0 0 0\n"
+            + "------+-------+------\n"
+            + "3 0 1 | 0 0 7 | 0 4 0\n"
+            + "7 2 0 | 0 4 0 | 0 6 0\n"
+            + "0 0 4 | 0 1 0 | 0 0 3\n";
+        assertEquals(List.of(PUZZLE), readAll(text));
+    }
+
+    @Test
+    void readsCompactGrids()
+    {
+        String text = "2...8.3..\n.6..7..84\n.3.5..2.9\n...1.54.8\n.........\n4.27.6...\n3.1..7.4.\n72..4..6.\n..4.1...3\n";
+        assertEquals(List.of(PUZZLE), readAll(text));
+    }
+
+    @Test
+    void readsTheCorpusFiles()
+    {
+        PuzzleImporter in = new PuzzleImporter(PuzzleImporterTest.class.getResourceAsStream("/board1.txt"));
+        assertTrue(in.hasNext());
+        Board board = in.next();
+        assertEquals(9, board.getSize());
+        assertFalse(in.hasNext());
+    }
+
+    @Test
+    void readsFourByFourLines()
+    {
+        List<String> lines = readAll("1..4..1..4..2..1\n");
+        assertEquals(1, lines.size());
+        assertEquals(2, Board.fromLine(lines.get(0)).getBoxSize());
+    }
+
+    // 16 spaced-out cells are a grid row even when none of them is above 4
+    @Test
+    void readsSixteenBySixteenGridsStartingWithSmallValues()
+    {
+        StringBuilder spaced = new StringBuilder("1 2 3 4" + " .".repeat(12) + "\n");
+        StringBuilder bars = new StringBuilder("1234|....|....|....\n");
+        for (int row = 1; row < 16; row++)
+        {
+            String cells = row == 15 ? "....|....|....|...G" : "....|....|....|....";
+            spaced.append(String.join(" ", cells.replace("|", "").split("")) + "\n");
+            bars.append(cells + "\n");
+        }
+        String expected = "1234" + ".".repeat(251) + "G";
+        for (String text : new String[] {spaced.toString(), bars.toString()})
+        {
+            Board board = Board.loadBoard(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+            assertEquals(16, board.getSize());
+            assertEquals(expected, board.toLine());
+        }
+    }
+
+    @Test
+    void clashesNameTheirLineAndReadingGoesOn()
+    {
+        String clash = "22" + PUZZLE.substring(2);
+        PuzzleImporter in = importer(PUZZLE + "\n" + clash + "\n" + PUZZLE + "\n");
+        assertEquals(PUZZLE, in.next().toLine());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, in::next);
+        assertTrue(e.getMessage().startsWith("Line 2"), e.getMessage());
+        assertTrue(in.hasNext());
+        assertEquals(PUZZLE, in.next().toLine());
+        assertFalse(in.hasNext());
+    }
+
+    @Test
+    void unfinishedGridIsAnError()
+    {
+        PuzzleImporter in = importer("200080300\n060070084\n");
+        assertThrows(IllegalArgumentException.class, in::hasNext);
+    }
+}
@@ -0,0 +1,174 @@
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PuzzleLibraryTest
+{
+    private static final String PUZZLE = "2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...3";
+    private static final int PUZZLES = 40;
+
+    @TempDir
+    Path dir;
+
+    // the i-th test puzzle: PUZZLE with its first i % 8 givens removed
+    private static Board puzzle(int i)
+    {
+        Board board = Board.fromLine(PUZZLE);
+        int removed = 0;
+        for (int cell = 0; removed < i % 8; cell++)
+        {
+            if (board.hasValue(cell / 9, cell % 9))
+            {
+                board.rawSetCell(cell / 9, cell % 9, 0);
+                removed++;
+            }
+        }
+        return board;
+    }
+
+    private static Difficulty difficulty(int i)
+    {
+        return Difficulty.values()[i % Difficulty.values().length];
+    }
+
+    private static void addAll(PuzzleLibrary library, int from, int to) throws IOException
+    {
+        for (int i = from; i < to; i++)
+        {
+            assertEquals(i, library.add(puzzle(i), difficulty(i)));
+            if (i % 3 == 0)
+            {
+                library.setSolved(i, true);
+            }
+        }
+    }
+
+    // checks what the library holds against what addAll put in it
+    private static void check(PuzzleLibrary library, int puzzles) throws IOException
+    {
+        assertEquals(puzzles, library.size());
+        int clues = PackedFormat.countClues(Board.fromLine(PUZZLE));
+        for (int i = 0; i < puzzles; i++)
+        {
+            assertEquals(puzzle(i).toLine(), library.get(i).toLine());
+            assertEquals(difficulty(i), library.getDifficulty(i));
+            assertEquals(clues - i % 8, library.getClueCount(i));
+            assertEquals(i % 3 == 0, library.isSolved(i));
+        }
+        for (Difficulty difficulty : Difficulty.values())
+        {
+            long expected = 0;
+            long unsolved = 0;
+            for (int i = 0; i < puzzles; i++)
+            {
+                if (difficulty(i) == difficulty && clues - i % 8 >= clues - 3)
+                {
+                    expected++;
+                    if (i % 3 != 0)
+                    {
+                        unsolved++;
+                    }
+                }
+            }
+            assertEquals(expected, library.query().difficulty(difficulty).clues(clues - 3, clues).count());
+            assertEquals(unsolved, library.query().difficulty(difficulty).clues(clues - 3, clues).solved(false).count());
+        }
+        assertEquals(puzzles, library.query().count());
+    }
+
+    @Test
+    void puzzlesSurviveReopening() throws IOException
+    {
+        try (PuzzleLibrary library = PuzzleLibrary.open(dir))
+        {
+            addAll(library, 0, PUZZLES);
+            check(library, PUZZLES);
+        }
+        try (PuzzleLibrary library = PuzzleLibrary.open(dir))
+        {
+            check(library, PUZZLES);
+        }
+    }
+
+    @Test
+    void pickReturnsAMatch() throws IOException
+    {
+        try (PuzzleLibrary library = PuzzleLibrary.open(dir))
+        {
+            addAll(library, 0, PUZZLES);
+            Random random = new Random(25);
+            for (int k = 0; k < 20; k++)
+            {
+                long id = library.query().difficulty(Difficulty.HARD).solved(false).pick(random);
+                assertEquals(Difficulty.HARD, library.getDifficulty(id));
+                assertFalse(library.isSolved(id));
+            }
+            assertEquals(-1, library.query().clues(17).pick(random));
+        }
+    }
+
+    @Test
+    void corruptIndexIsRebuilt() throws IOException
+    {
+        try (PuzzleLibrary library = PuzzleLibrary.open(dir))
+        {
+            addAll(library, 0, PUZZLES);
+        }
+        try (RandomAccessFile index = new RandomAccessFile(dir.resolve(PuzzleLibrary.INDEX_FILE).toFile(), "rw"))
+        {
+            index.setLength(PuzzleLibrary.INDEX_HEADER_SIZE + PuzzleLibrary.BLOCK_SIZE / 2);
+        }
+        try (PuzzleLibrary library = PuzzleLibrary.open(dir))
+        {
+            check(library, PUZZLES);
+        }
+    }
+
+    @Test
+    void staleIndexIsCaughtUp() throws IOException
+    {
+        Path index = dir.resolve(PuzzleLibrary.INDEX_FILE);
+        Path stale = dir.resolve("stale.bin");
+        try (PuzzleLibrary library = PuzzleLibrary.open(dir))
+        {
+            addAll(library, 0, PUZZLES / 2);
+        }
+        Files.copy(index, stale);
+        try (PuzzleLibrary library = PuzzleLibrary.open(dir))
+        {
+            addAll(library, PUZZLES / 2, PUZZLES);
+        }
+        // as if the process died after writing the puzzles but before the index
+        Files.move(stale, index, StandardCopyOption.REPLACE_EXISTING);
+        try (PuzzleLibrary library = PuzzleLibrary.open(dir))
+        {
+            check(library, PUZZLES);
+        }
+    }
+
+    @Test
+    void onlyOneOpenAtATime() throws IOException
+    {
+        try (PuzzleLibrary library = PuzzleLibrary.open(dir))
+        {
+            addAll(library, 0, 1);
+            IOException e = assertThrows(IOException.class, () -> PuzzleLibrary.open(dir));
+            assertTrue(e.getMessage().contains("already open"), e.getMessage());
+            // the failed open leaves the open library alone
+            assertEquals(puzzle(0).toLine(), library.get(0).toLine());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PuzzlePoolTest
+{
+    @TempDir
+    Path dir;
+
+    @Test
+    void pollDoesNotWaitForAPuzzle()
+    {
+        PuzzlePool pool = new PuzzlePool(4, 1, 1);
+        assertNull(pool.poll());
+    }
+
+    @Test
+    void producersFillThePool()
+    {
+        PuzzlePool pool = new PuzzlePool(2, 0, 1);
+        pool.start();
+        try
+        {
+            Board board = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                Board polled;
+                while ((polled = pool.poll()) == null)
+                {
+                    Thread.sleep(10);
+                }
+                return polled;
+            });
+            assertEquals(SolutionCount.UNIQUE, board.getSolutionCount());
+        }
+        finally
+        {
+            pool.stop();
+        }
+    }
+
+    @Test
+    void savedPuzzlesAreLoadedOnce() throws IOException
+    {
+        Path file = dir.resolve("pool.bin");
+        // take() on an empty pool generates one right away
+        Board puzzle = new PuzzlePool(4, 1, 1).take();
+        try (PackedPuzzleWriter writer = new PackedPuzzleWriter(file, false, false))
+        {
+            writer.write(puzzle);
+        }
+
+        PuzzlePool pool = new PuzzlePool(4, 1, 1);
+        pool.load(file);
+        assertFalse(Files.exists(file));
+        pool.save(file);
+        Board loaded = pool.poll();
+        assertNotNull(loaded);
+        assertEquals(puzzle.toLine(), loaded.toLine());
+        assertNull(pool.poll());
+
+        PuzzlePool reloaded = new PuzzlePool(4, 1, 1);
+        reloaded.load(file);
+        assertEquals(1, reloaded.size());
+    }
+}
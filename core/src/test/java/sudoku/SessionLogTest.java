@@ -0,0 +1,119 @@
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SessionLogTest
+{
+    private static final String PUZZLE = "2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...3";
+
+    @TempDir
+    Path dir;
+
+    // plays the first few empty cells of board with their solution values, then undoes the last one
+    private static void play(Board board, int moves)
+    {
+        Board solution = board.findSolution();
+        for (int i = 0; i < 81 && moves > 0; i++)
+        {
+            if (!board.hasValue(i / 9, i % 9))
+            {
+                board.makeMove(i / 9, i % 9, solution.getCell(i / 9, i % 9));
+                moves--;
+            }
+        }
+        board.undo();
+    }
+
+    @Test
+    void restoreReplaysMovesAndHistory() throws IOException
+    {
+        Path file = dir.resolve("session.bin");
+        Board board = Board.fromLine(PUZZLE);
+        try (SessionLog log = new SessionLog(file))
+        {
+            log.start(board);
+            board.addMoveListener(log);
+            play(board, 5);
+            board.removeMoveListener(log);
+        }
+
+        Board restored = new Board();
+        Board givens;
+        try (SessionLog log = new SessionLog(file))
+        {
+            assertEquals(3, log.getSavedBoxSize());
+            givens = log.restore(restored);
+        }
+        assertNotNull(givens);
+        assertEquals(PUZZLE, givens.toLine());
+        assertEquals(board.toLine(), restored.toLine());
+        assertTrue(restored.canRedo());
+        restored.redo();
+        board.redo();
+        assertEquals(board.toLine(), restored.toLine());
+        for (int i = 0; i < 5; i++)
+        {
+            restored.undo();
+        }
+        assertFalse(restored.canUndo());
+        assertEquals(PUZZLE, restored.toLine());
+    }
+
+    @Test
+    void tornTailIsDropped() throws IOException
+    {
+        Path file = dir.resolve("session.bin");
+        Board board = Board.fromLine(PUZZLE);
+        try (SessionLog log = new SessionLog(file))
+        {
+            log.start(board);
+            board.addMoveListener(log);
+            play(board, 3);
+            board.removeMoveListener(log);
+        }
+        long good = Files.size(file);
+        // half a record, as a crash in the middle of a write leaves it
+        Files.write(file, new byte[] {1, 0, 0}, StandardOpenOption.APPEND);
+
+        Board restored = new Board();
+        try (SessionLog log = new SessionLog(file))
+        {
+            assertNotNull(log.restore(restored));
+            assertEquals(good, Files.size(file));
+            // moves made after the restore follow the last good record
+            restored.addMoveListener(log);
+            restored.redo();
+        }
+        board.redo();
+
+        Board again = new Board();
+        try (SessionLog log = new SessionLog(file))
+        {
+            assertNotNull(log.restore(again));
+        }
+        assertEquals(board.toLine(), again.toLine());
+    }
+
+    @Test
+    void emptyFileHasNoSession() throws IOException
+    {
+        Board board = new Board();
+        try (SessionLog log = new SessionLog(dir.resolve("session.bin")))
+        {
+            assertNull(log.restore(board));
+        }
+        assertEquals(new Board().toLine(), board.toLine());
+    }
+}
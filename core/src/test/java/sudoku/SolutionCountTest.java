@@ -0,0 +1,27 @@
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class SolutionCountTest
+{
+    @Test
+    void ofNumberOfSolutions()
+    {
+        assertEquals(SolutionCount.NONE, SolutionCount.of(0));
+        assertEquals(SolutionCount.UNIQUE, SolutionCount.of(1));
+        assertEquals(SolutionCount.MULTIPLE, SolutionCount.of(2));
+        assertEquals(SolutionCount.MULTIPLE, SolutionCount.of(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void boardSolutionCount()
+    {
+        Board unique = Board.fromLine("2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...3");
+        assertEquals(SolutionCount.UNIQUE, unique.getSolutionCount());
+        assertEquals(SolutionCount.MULTIPLE, new Board().getSolutionCount());
+        Board none = Board.fromLine("2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...5");
+        assertEquals(SolutionCount.NONE, none.getSolutionCount());
+    }
+}
@@ -0,0 +1,160 @@
+package sudoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Every engine must find the same number of solutions, and a real solution, for the
+ * puzzles in puzzles/ and a few harder, multi-solution and broken ones.
+ */
+class SolverAgreementTest
+{
+    private static final int LIMIT = 1000;
+
+    private static final String[] LINES = {
+        "2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...3",
+        "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+        "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+        // the first puzzle with a clue changed so it has no solution, though no givens clash
+        "2...8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...5",
+    };
+
+    // givens that clash, which Board.fromLine() lets through: no engine may find a solution
+    private static final String[] CLASHING = {
+        // two 2s in the first row
+        "22..8.3...6..7..84.3.5..2.9...1.54.8.........4.27.6...3.1..7.4.72..4..6...4.1...3",
+        // two 1s in the top left box only, with the rest of the board nearly empty
+        "1.........1" + ".".repeat(70),
+        // two 3s in the last column of an otherwise empty 4x4
+        "...3" + ".".repeat(8) + "...3",
+    };
+
+    private static List<Solver> engines()
+    {
+        List<Solver> engines = new ArrayList<>();
+        engines.add(new BacktrackingSolver());
+        engines.add(new DancingLinksSolver(new Random(1)));
+        engines.add(new PropagationSolver(new Random(1)));
+        engines.add(new ParallelSolver(new BacktrackingSolver(), 2));
+        return engines;
+    }
+
+    static List<Board> corpus() throws IOException
+    {
+        List<Board> puzzles = new ArrayList<>();
+        for (String name : new String[] {"board1.txt", "board2.txt"})
+        {
+            try (InputStream in = SolverAgreementTest.class.getResourceAsStream("/" + name))
+            {
+                assertNotNull(in, name);
+                puzzles.add(Board.loadBoard(in));
+            }
+        }
+        for (String line : LINES)
+        {
+            puzzles.add(Board.fromLine(line));
+        }
+        // the same puzzles with clues taken away, so most have several solutions
+        Random random = new Random(220);
+        for (Board puzzle : new ArrayList<>(puzzles))
+        {
+            Board fewer = new Board(puzzle);
+            for (int removed = 0; removed < 10; )
+            {
+                int r = random.nextInt(9);
+                int c = random.nextInt(9);
+                if (fewer.hasValue(r, c))
+                {
+                    fewer.rawSetCell(r, c, 0);
+                    removed++;
+                }
+            }
+            puzzles.add(fewer);
+        }
+        for (String line : CLASHING)
+        {
+            puzzles.add(Board.fromLine(line));
+        }
+        puzzles.add(new Board(2));
+        return puzzles;
+    }
+
+    @Test
+    void enginesAgreeOnSolutionCounts() throws IOException
+    {
+        for (Board puzzle : corpus())
+        {
+            int expected = new BacktrackingSolver().countSolutions(puzzle, LIMIT);
+            for (Solver engine : engines())
+            {
+                assertEquals(expected, engine.countSolutions(puzzle, LIMIT), engine.getClass().getSimpleName() + " on " + puzzle.toLine());
+            }
+        }
+    }
+
+    @Test
+    void enginesAgreeOnSolvability() throws IOException
+    {
+        for (Board puzzle : corpus())
+        {
+            boolean solvable = new BacktrackingSolver().countSolutions(puzzle, 1) > 0;
+            for (Solver engine : engines())
+            {
+                String name = engine.getClass().getSimpleName() + " on " + puzzle.toLine();
+                Board solution = engine.solve(puzzle);
+                if (!solvable)
+                {
+                    assertNull(solution, name);
+                    continue;
+                }
+                assertNotNull(solution, name);
+                assertTrue(solution.isSolved(), name);
+                for (int r = 0; r < puzzle.getSize(); r++)
+                {
+                    for (int c = 0; c < puzzle.getSize(); c++)
+                    {
+                        if (puzzle.hasValue(r, c))
+                        {
+                            assertEquals(puzzle.getCell(r, c), solution.getCell(r, c), name);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void clashingGivensHaveNoSolution()
+    {
+        for (String line : CLASHING)
+        {
+            Board puzzle = Board.fromLine(line);
+            for (Solver engine : engines())
+            {
+                String name = engine.getClass().getSimpleName() + " on " + line;
+                assertEquals(0, engine.countSolutions(puzzle, LIMIT), name);
+                assertNull(engine.solve(puzzle), name);
+            }
+        }
+    }
+
+    @Test
+    void emptyFourByFourHasAllItsGrids()
+    {
+        // every 4x4 grid: 288 of them
+        for (Solver engine : engines())
+        {
+            assertEquals(288, engine.countSolutions(new Board(2), LIMIT), engine.getClass().getSimpleName());
+        }
+    }
+}
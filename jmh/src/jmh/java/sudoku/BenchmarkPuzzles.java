@@ -0,0 +1,124 @@
+package sudoku;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The fixed puzzle corpus every benchmark runs over, so numbers from different runs
+ * (and different engines) can be compared.
+ */
+final class BenchmarkPuzzles
+{
+    private static final long SEED = 220;
+
+    private static final String[] EASY = {
+        "200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+        "000000907000420180000705026100904000050000040000507009920108000034059000507000000",
+    };
+
+    private static final String[] HARD = {
+        "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+        "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+        "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+        "52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+        "6.....8.3.4.7.................5.4.7.3..2.....1.6.......2.....5.....8.6......1....",
+    };
+
+    private BenchmarkPuzzles()
+    {
+    }
+
+    // the engines the batch solver knows, seeded so the randomised ones always walk the same tree
+    static Solver solver(String name)
+    {
+        switch (name)
+        {
+            case "propagation":
+                return new PropagationSolver(new Random(SEED));
+            case "dlx":
+                return new DancingLinksSolver(new Random(SEED));
+            case "backtracking":
+                return new BacktrackingSolver();
+            default:
+                throw new IllegalArgumentException("Unknown solver: " + name);
+        }
+    }
+
+    // "easy" also includes the files in puzzles/, "multi" puzzles have more than one solution
+    static List<Board> get(String category)
+    {
+        List<Board> boards = new ArrayList<>();
+        switch (category)
+        {
+            case "easy":
+                for (String line : EASY)
+                {
+                    boards.add(Board.fromLine(line));
+                }
+                boards.addAll(resourcePuzzles("board1.txt", "board2.txt"));
+                break;
+            case "hard":
+                for (String line : HARD)
+                {
+                    boards.add(Board.fromLine(line));
+                }
+                break;
+            case "multi":
+                // the easy puzzles with clues taken away, always the same ones thanks to the seed
+                Random random = new Random(SEED);
+                for (Board board : get("easy"))
+                {
+                    for (int removed = 0; removed < 8; )
+                    {
+                        int r = random.nextInt(9);
+                        int c = random.nextInt(9);
+                        if (board.hasValue(r, c))
+                        {
+                            board.rawSetCell(r, c, 0);
+                            removed++;
+                        }
+                    }
+                    boards.add(board);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown puzzle category: " + category);
+        }
+        return boards;
+    }
+
+    static byte[] resourceBytes(String name)
+    {
+        try (InputStream in = BenchmarkPuzzles.class.getResourceAsStream("/" + name))
+        {
+            if (in == null)
+            {
+                throw new IllegalStateException("Missing benchmark puzzle " + name);
+            }
+            return in.readAllBytes();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Board> resourcePuzzles(String... names)
+    {
+        List<Board> puzzles = new ArrayList<>();
+        for (String name : names)
+        {
+            PuzzleImporter importer = new PuzzleImporter(new ByteArrayInputStream(resourceBytes(name)));
+            while (importer.hasNext())
+            {
+                puzzles.add(importer.next());
+            }
+        }
+        return puzzles;
+    }
+}
@@ -0,0 +1,95 @@
+package sudoku;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Candidate lookups and loading, none of which depend on the solver; generation is in
+ * GeneratorBenchmark.
+ */
+@State(Scope.Thread)
+public class BoardBenchmark
+{
+    private Board board;
+    private byte[] boardFile;
+    // the easy and hard puzzles a hundred times over, one line each
+    private byte[] collection;
+
+    @Setup
+    public void setUp()
+    {
+        List<Board> easy = BenchmarkPuzzles.get("easy");
+        board = easy.get(0);
+        boardFile = BenchmarkPuzzles.resourceBytes("board1.txt");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+        {
+            for (String category : new String[] {"easy", "hard"})
+            {
+                for (Board puzzle : BenchmarkPuzzles.get(category))
+                {
+                    lines.append(puzzle.toLine()).append('\n');
+                }
+            }
+        }
+        collection = lines.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // every cell of a partly filled board, through the Set view
+    @Benchmark
+    public int getPossibleValues()
+    {
+        int total = 0;
+        for (int r = 0; r < 9; r++)
+        {
+            for (int c = 0; c < 9; c++)
+            {
+                Set<Integer> values = board.getPossibleValues(r, c);
+                for (int value : values)
+                {
+                    total += value;
+                }
+            }
+        }
+        return total;
+    }
+
+    // the same walk as getPossibleValues, on the primitive mask
+    @Benchmark
+    public int getCandidateMask()
+    {
+        int total = 0;
+        for (int r = 0; r < 9; r++)
+        {
+            for (int c = 0; c < 9; c++)
+            {
+                total += board.getCandidateMask(r, c);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Board loadBoard()
+    {
+        return Board.loadBoard(new ByteArrayInputStream(boardFile));
+    }
+
+    @Benchmark
+    public void importCollection(Blackhole bh)
+    {
+        PuzzleImporter importer = new PuzzleImporter(new ByteArrayInputStream(collection));
+        while (importer.hasNext())
+        {
+            bh.consume(importer.next());
+        }
+    }
+}
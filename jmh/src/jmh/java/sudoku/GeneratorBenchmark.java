@@ -0,0 +1,35 @@
+package sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Generation with each engine doing the solving and counting behind it.
+ */
+@State(Scope.Thread)
+public class GeneratorBenchmark
+{
+    @Param({"propagation", "dlx", "backtracking"})
+    public String engine;
+
+    @Benchmark
+    public void generateRandomBoard(Blackhole bh)
+    {
+        Board generated = new Board();
+        generated.setSolver(BenchmarkPuzzles.solver(engine));
+        generated.generateRandomBoard();
+        bh.consume(generated);
+    }
+
+    @Benchmark
+    public void generateMinimumSolvable(Blackhole bh)
+    {
+        Board generated = new Board();
+        generated.setSolver(BenchmarkPuzzles.solver(engine));
+        generated.generateMinimumSolvable();
+        bh.consume(generated);
+    }
+}
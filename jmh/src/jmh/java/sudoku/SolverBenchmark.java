@@ -0,0 +1,67 @@
+package sudoku;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Solving and counting over each puzzle category with each engine. One operation
+ * handles every puzzle of the category once.
+ */
+@State(Scope.Thread)
+public class SolverBenchmark
+{
+    @Param({"easy", "hard", "multi"})
+    public String category;
+
+    @Param({"propagation", "dlx", "backtracking"})
+    public String engine;
+
+    private List<Board> puzzles;
+
+    @Setup
+    public void setUp()
+    {
+        puzzles = BenchmarkPuzzles.get(category);
+        for (Board board : puzzles)
+        {
+            board.setSolver(BenchmarkPuzzles.solver(engine));
+        }
+    }
+
+    @Benchmark
+    public void solve(Blackhole bh)
+    {
+        for (Board puzzle : puzzles)
+        {
+            // solve() fills the board in place, so work on a copy
+            Board board = new Board(puzzle);
+            board.solve();
+            bh.consume(board);
+        }
+    }
+
+    @Benchmark
+    public void getSolvable(Blackhole bh)
+    {
+        for (Board puzzle : puzzles)
+        {
+            bh.consume(puzzle.getSolvable());
+        }
+    }
+
+    // capped so the multi-solution puzzles measure the search, not the size of the answer
+    @Benchmark
+    public void numSolutions(Blackhole bh)
+    {
+        for (Board puzzle : puzzles)
+        {
+            bh.consume(puzzle.numSolutions(1000));
+        }
+    }
+}